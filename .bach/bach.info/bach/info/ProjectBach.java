@@ -0,0 +1,31 @@
+package bach.info;
+
+import com.github.sormuras.bach.Bach;
+import com.github.sormuras.bach.Options;
+import com.github.sormuras.bach.tool.Javac;
+import java.nio.file.Path;
+import java.util.List;
+
+/** Puts the stash compiler and the modules it requires on the processor module path of tests. */
+public class ProjectBach extends Bach {
+
+  /** Creates project-specific Bach instances. */
+  public static class Provider implements Bach.Provider<ProjectBach> {
+
+    @Override
+    public ProjectBach newBach(Options options) {
+      return new ProjectBach(options);
+    }
+  }
+
+  ProjectBach(Options options) {
+    super(options);
+  }
+
+  // joined with the platform's path separator
+  @Override
+  public Javac buildProjectTestJavac(Path classes) {
+    var paths = List.of(folders().externalModules(), folders().workspace("modules"));
+    return super.buildProjectTestJavac(classes).add("--processor-module-path", paths);
+  }
+}
@@ -11,7 +11,7 @@ import com.github.sormuras.bach.project.JavaStyle;
     name = "stash",
     version = "1-ea",
     format = JavaStyle.GOOGLE,
-    compileModulesForJavaRelease = 16,
+    compileModulesForJavaRelease = 17,
     includeSourceFilesIntoModules = true,
     tools = @Tools(skip = "jlink"),
     tweaks = {
@@ -25,13 +25,30 @@ import com.github.sormuras.bach.project.JavaStyle;
       @Tweak(tool = "javadoc", option = "-Xdoclint:-missing"),
       @Tweak(tool = "javadoc", option = "-Werror"),
     },
-    requires = "org.junit.platform.console",
-    lookupExternal =
-        @External(
-            module = "com.github.sormuras.beethoven",
-            via =
-                "https://github.com/sormuras/beethoven/releases/download/1-ea/com.github.sormuras.beethoven@1-ea.jar"),
+    testTweaks = {
+      @Tweak(tool = "javac", option = "-encoding", value = "UTF-8"),
+      @Tweak(tool = "javac", option = "--default-module-for-created-files", value = "test.bench"),
+      @Tweak(tool = "javac", option = "-Acom.github.sormuras.stash.compiler.modules=test.bench"),
+    },
+    requires = {
+      "org.junit.platform.console", "jmh.generator.annprocess", "jopt.simple", "commons.math3"
+    },
+    lookupExternal = {
+      @External(
+          module = "com.github.sormuras.beethoven",
+          via =
+              "https://github.com/sormuras/beethoven/releases/download/1-ea/com.github.sormuras.beethoven@1-ea.jar"),
+      @External(module = "jmh.core", via = "org.openjdk.jmh:jmh-core:1.37"),
+      @External(
+          module = "jmh.generator.annprocess",
+          via = "org.openjdk.jmh:jmh-generator-annprocess:1.37"),
+      @External(module = "jopt.simple", via = "net.sf.jopt-simple:jopt-simple:5.0.4"),
+      @External(module = "commons.math3", via = "org.apache.commons:commons-math3:3.6.1"),
+    },
     lookupExternals = @Externals(name = Externals.Name.JUNIT, version = "5.8.0-M1"))
 module bach.info {
   requires com.github.sormuras.bach;
+
+  provides com.github.sormuras.bach.Bach.Provider with
+      bach.info.ProjectBach.Provider;
 }
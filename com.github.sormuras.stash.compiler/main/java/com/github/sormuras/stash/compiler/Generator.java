@@ -9,12 +9,18 @@ import com.github.sormuras.beethoven.unit.CompilationUnit;
 import com.github.sormuras.beethoven.unit.InterfaceDeclaration;
 import com.github.sormuras.beethoven.unit.MethodDeclaration;
 import com.github.sormuras.beethoven.unit.MethodParameter;
+import com.github.sormuras.beethoven.unit.NormalClassDeclaration;
 import com.github.sormuras.stash.Stash;
+import com.github.sormuras.stash.compiler.generator.AsyncBuilder;
+import com.github.sormuras.stash.compiler.generator.GuardBuilder;
+import com.github.sormuras.stash.compiler.generator.PipelineBuilder;
 import com.github.sormuras.stash.compiler.generator.StashBuilder;
+import com.github.sormuras.stash.compiler.generator.VisitorBuilder;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.StringJoiner;
 import java.util.zip.CRC32;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.type.MirroredTypeException;
@@ -28,6 +34,7 @@ public class Generator {
   private final Instant now;
   private final InterfaceDeclaration io;
   private final Quaestor quaestor;
+  private NormalClassDeclaration values;
 
   Generator(ClassLoader loader, Stash stash, InterfaceDeclaration declaration) {
     this.stash = stash;
@@ -51,6 +58,17 @@ public class Generator {
     return quaestor;
   }
 
+  // package-private "DemoValues" holder, shared by the stash class and the io interface
+  public NormalClassDeclaration getValues() {
+    if (values == null) {
+      String packageName = declaration.getCompilationUnit().getPackageName();
+      CompilationUnit unit = CompilationUnit.of(packageName);
+      values = unit.declareClass(declaration.getName() + "Values");
+      values.setModifiers(Modifier.FINAL);
+    }
+    return values;
+  }
+
   private Annotation buildAnnotationGenerated() {
     Annotation generated = Annotation.annotation(Deprecated.class);
     generated.addValue(getClass().getCanonicalName());
@@ -84,20 +102,62 @@ public class Generator {
     return "0x" + hash;
   }
 
+  // "store(int)", used to look up the metrics of a method
+  public String buildMethodSignature(MethodDeclaration method) {
+    StringJoiner types = new StringJoiner(", ", method.getName() + "(", ")");
+    method.getParameters().forEach(p -> types.add(p.getType().list()));
+    return types.toString();
+  }
+
   public String buildSpawnMethodName(MethodDeclaration method, String hash) {
     return method.getName() + hash;
   }
 
+  public String buildForkMethodName(MethodDeclaration method, String hash) {
+    return method.getName() + "Fork" + hash;
+  }
+
   public Optional<MethodParameter> findTimeParameter(MethodDeclaration method) {
     return method.getParameters().stream().filter(Tag::isParameterTime).findFirst();
   }
 
+  public Optional<MethodParameter> findKeyParameter(MethodDeclaration method) {
+    return method.getParameters().stream().filter(Tag::isParameterKey).findFirst();
+  }
+
+  public boolean isTimed() {
+    return declaration.getMethods().stream()
+        .filter(method -> !Tag.isMethodVolatile(method))
+        .anyMatch(method -> findTimeParameter(method).isPresent());
+  }
+
+  public boolean isPartitioned() {
+    return declaration.getMethods().stream()
+        .filter(method -> !Tag.isMethodVolatile(method))
+        .anyMatch(method -> findKeyParameter(method).isPresent());
+  }
+
   List<CompilationUnit> generate() {
     String packageName = declaration.getCompilationUnit().getPackageName();
     List<CompilationUnit> units = new ArrayList<>();
-    units.add(generateStash(CompilationUnit.of(packageName)));
-    units.add(generateGuard(CompilationUnit.of(packageName)));
+    CompilationUnit stashUnit = generateStash(CompilationUnit.of(packageName));
+    units.add(stashUnit);
+    CompilationUnit guardUnit = generateGuard(CompilationUnit.of(packageName));
+    units.add(guardUnit);
+    CompilationUnit asyncUnit = CompilationUnit.of(packageName);
+    CompilationUnit asyncGuardUnit = CompilationUnit.of(packageName);
+    generateAsync(asyncUnit, asyncGuardUnit, guardUnit);
+    units.add(asyncUnit);
+    units.add(asyncGuardUnit);
+    units.add(generatePipeline(CompilationUnit.of(packageName), stashUnit, asyncUnit));
+    CompilationUnit visitorUnit = CompilationUnit.of(packageName);
+    if (!generateVisitor(visitorUnit).isEmpty()) {
+      units.add(visitorUnit);
+    }
     units.add(io.getCompilationUnit());
+    if (values != null) {
+      units.add(values.getCompilationUnit());
+    }
     return units;
   }
 
@@ -111,18 +171,40 @@ public class Generator {
 
   // create compilation unit "DemoGuard.java" with "class DemoGuard implements Demo {...}"
   private CompilationUnit generateGuard(CompilationUnit unit) {
-    ClassDeclaration guardDeclaration = unit.declareClass(declaration.getName() + "Guard");
-    guardDeclaration.setModifiers(Modifier.PUBLIC, Modifier.ABSTRACT);
-    guardDeclaration.addInterface(declaration.toType());
-    // guardDeclaration.addAnnotation(buildAnnotationGenerated());
+    new GuardBuilder(this, unit).generate();
     return unit;
   }
 
-  // create compilation unit "DemoIO.java" with "interface DemoIO {...}"
+  // create compilation units "DemoAsync.java" and "DemoAsyncGuard.java" implementing the former
+  private void generateAsync(
+      CompilationUnit asyncUnit, CompilationUnit asyncGuardUnit, CompilationUnit guardUnit) {
+    Type guardType = guardUnit.getEponymousDeclaration().orElseThrow(Error::new).toType();
+    new AsyncBuilder(this, asyncUnit, asyncGuardUnit, guardType).generate();
+  }
+
+  // create compilation unit "DemoPipeline.java" with "class DemoPipeline implements AutoCloseable"
+  private CompilationUnit generatePipeline(
+      CompilationUnit unit, CompilationUnit stashUnit, CompilationUnit asyncUnit) {
+    Type stashType = stashUnit.getEponymousDeclaration().orElseThrow(Error::new).toType();
+    Type asyncType = asyncUnit.getEponymousDeclaration().orElseThrow(Error::new).toType();
+    new PipelineBuilder(this, unit, stashType, asyncType).generate();
+    return unit;
+  }
+
+  // create compilation unit "DemoVisitor.java" and add decoder methods to "DemoIO"
+  private InterfaceDeclaration generateVisitor(CompilationUnit unit) {
+    VisitorBuilder visitorBuilder = new VisitorBuilder(this, unit);
+    InterfaceDeclaration visitorInterface = visitorBuilder.generate();
+    // visitorInterface.addAnnotation(buildAnnotationGenerated());
+    return visitorInterface;
+  }
+
+  // create compilation unit "DemoIO.java" with "public interface DemoIO {...}"
   private InterfaceDeclaration generateIO() {
     String packageName = declaration.getCompilationUnit().getPackageName();
     CompilationUnit unit = CompilationUnit.of(packageName);
     InterfaceDeclaration ioDeclaration = unit.declareInterface(declaration.getName() + "IO");
+    ioDeclaration.setModifiers(Modifier.PUBLIC);
     // ioDeclaration.addAnnotation(buildAnnotationGenerated());
     return ioDeclaration;
   }
@@ -131,10 +213,26 @@ public class Generator {
     return stash.verify();
   }
 
+  public boolean isOptimistic() {
+    return stash.optimistic();
+  }
+
+  public boolean isMetrics() {
+    return stash.metrics();
+  }
+
+  public boolean isMonitor() {
+    return stash.monitor();
+  }
+
   public Stashlet resolve(Type type) {
     return quaestor.resolve(type);
   }
 
+  public Stashlet resolve(MethodParameter parameter) {
+    return quaestor.resolve(parameter);
+  }
+
   public Listing applyCall(Listing listing, MethodDeclaration method) {
     listing.add("this.");
     listing.add(buildOtherName());
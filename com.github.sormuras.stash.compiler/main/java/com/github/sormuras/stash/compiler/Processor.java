@@ -1,9 +1,12 @@
 package com.github.sormuras.stash.compiler;
 
+import static com.github.sormuras.stash.compiler.Tag.setMethodFutureType;
 import static com.github.sormuras.stash.compiler.Tag.setMethodIsBase;
 import static com.github.sormuras.stash.compiler.Tag.setMethodIsChainable;
 import static com.github.sormuras.stash.compiler.Tag.setMethodIsDirect;
 import static com.github.sormuras.stash.compiler.Tag.setMethodIsVolatile;
+import static com.github.sormuras.stash.compiler.Tag.setParameterEncoding;
+import static com.github.sormuras.stash.compiler.Tag.setParameterIsKey;
 import static com.github.sormuras.stash.compiler.Tag.setParameterIsTime;
 import static com.github.sormuras.stash.compiler.Tag.setTypeIsEnum;
 import static com.github.sormuras.stash.compiler.Tag.setTypeIsStashable;
@@ -18,10 +21,16 @@ import com.github.sormuras.beethoven.unit.InterfaceDeclaration;
 import com.github.sormuras.beethoven.unit.MethodDeclaration;
 import com.github.sormuras.beethoven.unit.MethodParameter;
 import com.github.sormuras.beethoven.unit.TypeDeclaration;
+import com.github.sormuras.stash.Delta;
+import com.github.sormuras.stash.Key;
+import com.github.sormuras.stash.N;
+import com.github.sormuras.stash.Packed;
 import com.github.sormuras.stash.Stash;
+import com.github.sormuras.stash.Sorted;
 import com.github.sormuras.stash.Stashable;
 import com.github.sormuras.stash.Time;
 import com.github.sormuras.stash.Volatile;
+import com.github.sormuras.stash.Z;
 import com.github.sormuras.stash.compiler.stashlet.StaticStashlet;
 import java.io.PrintStream;
 import java.nio.ByteBuffer;
@@ -32,6 +41,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
@@ -39,10 +49,14 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
+import javax.lang.model.element.ModuleElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.Types;
@@ -51,6 +65,9 @@ import javax.tools.JavaFileObject;
 
 public class Processor extends AbstractProcessor {
 
+  /** Option holding comma-separated names of modules to process, all modules if it's absent. */
+  public static final String MODULES = "com.github.sormuras.stash.compiler.modules";
+
   private int roundCounter = 0;
   private boolean verbose = Boolean.getBoolean("com.github.sormuras.stash.compiler.verbose");
 
@@ -92,6 +109,11 @@ public class Processor extends AbstractProcessor {
     return set;
   }
 
+  @Override
+  public Set<String> getSupportedOptions() {
+    return Set.of(MODULES);
+  }
+
   @Override
   public SourceVersion getSupportedSourceVersion() {
     return SourceVersion.latestSupported();
@@ -110,6 +132,10 @@ public class Processor extends AbstractProcessor {
 
   private void processAllStashAnnotatedElements(Set<? extends Element> stashAnnotatedElements) {
     for (Element stashAnnotated : stashAnnotatedElements) {
+      if (!isModuleProcessed(stashAnnotated)) {
+        note("Skipping %s, its module isn't listed in option %s", stashAnnotated, MODULES);
+        continue;
+      }
       ElementKind kind = stashAnnotated.getKind();
       if (!kind.isInterface() || kind == ElementKind.ANNOTATION_TYPE) {
         error(
@@ -122,6 +148,15 @@ public class Processor extends AbstractProcessor {
     }
   }
 
+  private boolean isModuleProcessed(Element element) {
+    String modules = processingEnv.getOptions().get(MODULES);
+    if (modules == null) {
+      return true;
+    }
+    ModuleElement module = processingEnv.getElementUtils().getModuleOf(element);
+    return List.of(modules.split(",")).contains(module.getQualifiedName().toString());
+  }
+
   private void processStashAnnotatedElement(TypeElement stashAnnotated) {
     Stash stash = stashAnnotated.getAnnotation(Stash.class);
     note("Interface %s is annotated with %s", stashAnnotated, stash);
@@ -142,7 +177,7 @@ public class Processor extends AbstractProcessor {
     for (CompilationUnit generated : generatedUnits) {
       note("Generated %s", generated.toURI());
       TypeDeclaration principal = generated.getEponymousDeclaration().orElseThrow(Error::new);
-      if (principal.isEmpty()) {
+      if (principal.isEmpty() && principal == generator.getIo()) {
         note("Skipping empty %s", principal.getName());
         continue;
       }
@@ -216,6 +251,8 @@ public class Processor extends AbstractProcessor {
       setTypeIsEnum(parameterType, element != null && element.getKind() == ElementKind.ENUM);
       setTypeIsStashable(parameterType, isAssignable(type, Stashable.class));
       setParameterIsTime(methodParameter, parameter.getAnnotation(Time.class) != null);
+      setParameterIsKey(methodParameter, parameter.getAnnotation(Key.class) != null);
+      setParameterEncoding(methodParameter, encoding(parameter, type));
     }
     // calculate flags and other properties
     Element enclosingElement = method.getEnclosingElement();
@@ -224,9 +261,67 @@ public class Processor extends AbstractProcessor {
     setMethodIsChainable(declaration, isAssignable(stashed.asType(), method.getReturnType()));
     setMethodIsVolatile(declaration, volatileAnnotation != null);
     setMethodIsDirect(declaration, volatileAnnotation != null && volatileAnnotation.direct());
+    setMethodFutureType(declaration, Type.type(future(executableType.getReturnType())));
     return declaration;
   }
 
+  // suffix of the routines for @N, @Z, @Sorted, @Delta or @Packed annotated parameters, or null
+  private String encoding(VariableElement parameter, TypeMirror type) {
+    List<String> encodings = new ArrayList<>();
+    if (parameter.getAnnotation(N.class) != null) {
+      encodings.add("N");
+    }
+    if (parameter.getAnnotation(Z.class) != null) {
+      encodings.add("Z");
+    }
+    if (parameter.getAnnotation(Sorted.class) != null) {
+      encodings.add("Sorted");
+    }
+    if (parameter.getAnnotation(Delta.class) != null) {
+      encodings.add("Delta");
+    }
+    if (parameter.getAnnotation(Packed.class) != null) {
+      encodings.add("Packed");
+    }
+    if (encodings.isEmpty()) {
+      return null;
+    }
+    if (encodings.size() > 1) {
+      error(parameter, "@%s are mutually exclusive", String.join(", @", encodings));
+      return null;
+    }
+    String encoding = encodings.get(0);
+    boolean array = type.getKind() == TypeKind.ARRAY;
+    boolean varint = encoding.length() == 1;
+    TypeKind kind = array ? ((ArrayType) type).getComponentType().getKind() : type.getKind();
+    if (!array && kind == TypeKind.DECLARED) {
+      try {
+        kind = processingEnv.getTypeUtils().unboxedType(type).getKind();
+      } catch (IllegalArgumentException e) {
+        // not a boxed primitive
+      }
+    }
+    if ((kind == TypeKind.INT || kind == TypeKind.LONG) && array != varint) {
+      String name = kind == TypeKind.INT ? "Int" : "Long";
+      return varint ? name + encoding : encoding + name + "Array";
+    }
+    String expected = varint ? "an int or long" : "an int[] or long[]";
+    error(parameter, "@%s expects %s parameter, but got: %s", encoding, expected, type);
+    return null;
+  }
+
+  // CompletableFuture<R> with R being the boxed return type, or Void
+  private TypeMirror future(TypeMirror returnType) {
+    Types types = processingEnv.getTypeUtils();
+    TypeMirror result = returnType;
+    if (returnType.getKind() == TypeKind.VOID) {
+      result = element(Void.class).asType();
+    } else if (returnType.getKind().isPrimitive()) {
+      result = types.boxedClass((PrimitiveType) returnType).asType();
+    }
+    return types.getDeclaredType(element(CompletableFuture.class), result);
+  }
+
   private void processAllStashletMethods(
       Collection<ExecutableElement> staticMethods, Map<Type, Stashlet> stashlets) {
     Types types = processingEnv.getTypeUtils();
@@ -1,11 +1,18 @@
 package com.github.sormuras.stash.compiler;
 
+import com.github.sormuras.beethoven.Name;
 import com.github.sormuras.beethoven.type.Type;
+import com.github.sormuras.beethoven.unit.MethodParameter;
+import com.github.sormuras.stash.Stashable;
 import com.github.sormuras.stash.compiler.stashlet.AnyStashlet;
 import com.github.sormuras.stash.compiler.stashlet.BooleanStashlet;
+import com.github.sormuras.stash.compiler.stashlet.EncodingStashlet;
 import com.github.sormuras.stash.compiler.stashlet.EnumStashlet;
 import com.github.sormuras.stash.compiler.stashlet.PrimitiveStashlet;
 import com.github.sormuras.stash.compiler.stashlet.StashableStashlet;
+import com.github.sormuras.stash.compiler.stashlet.StaticStashlet;
+import com.github.sormuras.stash.compiler.stashlet.StringStashlet;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -26,6 +33,7 @@ public class Quaestor implements Iterable<Stashlet> {
   private final Map<Type, Stashlet> basics;
   private final Map<Type, Stashlet> customs;
   private final Map<Type, Stashlet> services;
+  private final Map<String, Stashlet> encodings;
 
   Quaestor(Generator generator, ClassLoader loader) {
     this.generator = generator;
@@ -34,6 +42,7 @@ public class Quaestor implements Iterable<Stashlet> {
     this.customs = new LinkedHashMap<>();
     this.basics = mapBasics();
     this.services = mapServices(loader);
+    this.encodings = mapEncodings();
     this.stashableStashlet = new StashableStashlet();
     this.enumStashlet = new EnumStashlet();
     this.anyStashlet = new AnyStashlet();
@@ -47,6 +56,14 @@ public class Quaestor implements Iterable<Stashlet> {
     return cache.computeIfAbsent(type, this::computeStashlet);
   }
 
+  Stashlet resolve(MethodParameter parameter) {
+    String encoding = Tag.getParameterEncoding(parameter);
+    if (encoding != null) {
+      return encodings.get(encoding);
+    }
+    return resolve(parameter.getType());
+  }
+
   private Stashlet computeStashlet(Type type) {
     Stashlet stashlet = lookupStashlet(type);
     stashlet.init(type, generator);
@@ -67,6 +84,7 @@ public class Quaestor implements Iterable<Stashlet> {
     all.addAll(customs.values());
     all.addAll(services.values());
     all.addAll(new HashSet<>(basics.values()));
+    all.addAll(encodings.values());
     all.add(stashableStashlet);
     all.add(enumStashlet);
     all.add(anyStashlet);
@@ -106,9 +124,53 @@ public class Quaestor implements Iterable<Stashlet> {
     // boolean is special
     map.put(Type.type(boolean.class), new BooleanStashlet());
     map.put(Type.type(Boolean.class), map.get(Type.type(boolean.class)));
+    // strings are encoded as UTF-8
+    map.put(Type.type(String.class), new StringStashlet());
+    map.put(Type.type(CharSequence.class), map.get(Type.type(String.class)));
+    // primitive arrays are copied in bulk, booleans are packed into bits
+    map.put(Type.type(boolean[].class), array(Stashable.Buffer.class, boolean[].class));
+    map.put(Type.type(byte[].class), array(Stashable.Buffer.class, byte[].class));
+    map.put(Type.type(char[].class), array(Stashable.Buffer.View.class, char[].class));
+    map.put(Type.type(double[].class), array(Stashable.Buffer.View.class, double[].class));
+    map.put(Type.type(float[].class), array(Stashable.Buffer.View.class, float[].class));
+    map.put(Type.type(int[].class), array(Stashable.Buffer.View.class, int[].class));
+    map.put(Type.type(long[].class), array(Stashable.Buffer.View.class, long[].class));
+    map.put(Type.type(short[].class), array(Stashable.Buffer.View.class, short[].class));
     return map;
   }
 
+  private static Stashlet array(Class<?> owner, Class<?> arrayType) {
+    String component = arrayType.getComponentType().getName();
+    String suffix = component.substring(0, 1).toUpperCase() + component.substring(1) + "Array";
+    try {
+      Name stashName = Name.name(owner.getMethod("stash" + suffix, ByteBuffer.class, arrayType));
+      Name spawnName = Name.name(owner.getMethod("spawn" + suffix, ByteBuffer.class));
+      return new StaticStashlet(Type.type(arrayType), stashName, spawnName);
+    } catch (NoSuchMethodException exception) {
+      throw new AssertionError("Accessor for " + arrayType + " not found!", exception);
+    }
+  }
+
+  private static Map<String, Stashlet> mapEncodings() {
+    Map<String, Stashlet> map = new LinkedHashMap<>();
+    // small numbers as varints
+    for (String encoding : List.of("N", "Z")) {
+      encode(map, int.class, Stashable.Buffer.class, "Int" + encoding);
+      encode(map, long.class, Stashable.Buffer.class, "Long" + encoding);
+    }
+    // compressed arrays
+    for (String encoding : List.of("Sorted", "Delta", "Packed")) {
+      encode(map, int[].class, Stashable.Buffer.Compact.class, encoding + "IntArray");
+      encode(map, long[].class, Stashable.Buffer.Compact.class, encoding + "LongArray");
+    }
+    return map;
+  }
+
+  private static void encode(
+      Map<String, Stashlet> map, Class<?> type, Class<?> owner, String suffix) {
+    map.put(suffix, new EncodingStashlet(Type.type(type), owner, suffix));
+  }
+
   private static Map<Type, Stashlet> mapServices(ClassLoader loader) {
     Map<Type, Stashlet> map = new LinkedHashMap<>();
     for (Stashlet stashlet : ServiceLoader.load(Stashlet.class, loader)) {
@@ -9,10 +9,17 @@ public enum Tag {
   METHOD_IS_CHAINABLE,
   METHOD_IS_VOLATILE,
   METHOD_IS_DIRECT,
+  METHOD_FUTURE_TYPE,
 
   TYPE_IS_ENUM,
   TYPE_IS_STASHABLE,
-  PARAMETER_IS_TIME;
+  PARAMETER_IS_TIME,
+  PARAMETER_IS_KEY,
+  PARAMETER_ENCODING;
+
+  public static boolean isMethodBase(MethodDeclaration method) {
+    return Boolean.TRUE.equals(method.getTags().get(METHOD_IS_BASE));
+  }
 
   public static boolean isMethodChainable(MethodDeclaration method) {
     return Boolean.TRUE.equals(method.getTags().get(METHOD_IS_CHAINABLE));
@@ -22,10 +29,18 @@ public enum Tag {
     return Boolean.TRUE.equals(method.getTags().get(METHOD_IS_VOLATILE));
   }
 
+  public static boolean isMethodDirect(MethodDeclaration method) {
+    return Boolean.TRUE.equals(method.getTags().get(METHOD_IS_DIRECT));
+  }
+
   public static boolean isMethodReturn(MethodDeclaration method) {
     return !method.getReturnType().isVoid();
   }
 
+  public static Type getMethodFutureType(MethodDeclaration method) {
+    return (Type) method.getTags().get(METHOD_FUTURE_TYPE);
+  }
+
   public static boolean isTypeEnum(Type type) {
     return Boolean.TRUE.equals(type.getTags().get(TYPE_IS_ENUM));
   }
@@ -38,6 +53,14 @@ public enum Tag {
     return Boolean.TRUE.equals(parameter.getTags().get(PARAMETER_IS_TIME));
   }
 
+  public static boolean isParameterKey(MethodParameter parameter) {
+    return Boolean.TRUE.equals(parameter.getTags().get(PARAMETER_IS_KEY));
+  }
+
+  public static String getParameterEncoding(MethodParameter parameter) {
+    return (String) parameter.getTags().get(PARAMETER_ENCODING);
+  }
+
   static void setMethodIsBase(MethodDeclaration method, boolean isBase) {
     method.getTags().put(METHOD_IS_BASE, isBase);
   }
@@ -54,6 +77,10 @@ public enum Tag {
     method.getTags().put(METHOD_IS_DIRECT, isDirect);
   }
 
+  static void setMethodFutureType(MethodDeclaration method, Type futureType) {
+    method.getTags().put(METHOD_FUTURE_TYPE, futureType);
+  }
+
   static void setTypeIsEnum(Type type, boolean isEnum) {
     type.getTags().put(TYPE_IS_ENUM, isEnum);
   }
@@ -65,4 +92,12 @@ public enum Tag {
   static void setParameterIsTime(MethodParameter parameter, boolean isTime) {
     parameter.getTags().put(PARAMETER_IS_TIME, isTime);
   }
+
+  static void setParameterIsKey(MethodParameter parameter, boolean isKey) {
+    parameter.getTags().put(PARAMETER_IS_KEY, isKey);
+  }
+
+  static void setParameterEncoding(MethodParameter parameter, String encoding) {
+    parameter.getTags().put(PARAMETER_ENCODING, encoding);
+  }
 }
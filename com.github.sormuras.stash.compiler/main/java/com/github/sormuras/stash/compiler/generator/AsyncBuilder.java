@@ -0,0 +1,124 @@
+package com.github.sormuras.stash.compiler.generator;
+
+import static com.github.sormuras.stash.compiler.Tag.getMethodFutureType;
+import static com.github.sormuras.stash.compiler.Tag.isMethodBase;
+import static com.github.sormuras.stash.compiler.Tag.isMethodReturn;
+import static com.github.sormuras.stash.compiler.Tag.isMethodVolatile;
+import static com.github.sormuras.stash.compiler.Tag.isParameterTime;
+
+import com.github.sormuras.beethoven.Listing;
+import com.github.sormuras.beethoven.type.Type;
+import com.github.sormuras.beethoven.unit.Block;
+import com.github.sormuras.beethoven.unit.CompilationUnit;
+import com.github.sormuras.beethoven.unit.FieldDeclaration;
+import com.github.sormuras.beethoven.unit.InterfaceDeclaration;
+import com.github.sormuras.beethoven.unit.MethodDeclaration;
+import com.github.sormuras.beethoven.unit.MethodParameter;
+import com.github.sormuras.beethoven.unit.NormalClassDeclaration;
+import com.github.sormuras.stash.compiler.Generator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import javax.lang.model.element.Modifier;
+
+/**
+ * Builds the asynchronous variant of a stash interface, whose methods return futures, and an
+ * implementation that submits guarded calls to an executor.
+ */
+public class AsyncBuilder {
+
+  /** {@return unattached method returning a future, without an argument for a journaled time} */
+  static MethodDeclaration createAsyncMethod(MethodDeclaration interfaceMethod) {
+    MethodDeclaration method = new MethodDeclaration();
+    method.setName(interfaceMethod.getName());
+    method.setReturnType(getMethodFutureType(interfaceMethod));
+    boolean journaled = !isMethodVolatile(interfaceMethod);
+    for (MethodParameter parameter : interfaceMethod.getParameters()) {
+      if (journaled && isParameterTime(parameter)) {
+        continue;
+      }
+      method.declareParameter(parameter.getType(), parameter.getName());
+    }
+    return method;
+  }
+
+  final Generator generator;
+
+  final InterfaceDeclaration asyncInterface;
+  final NormalClassDeclaration guardClass;
+  final FieldDeclaration guard;
+  final FieldDeclaration executor;
+
+  public AsyncBuilder(
+      Generator generator, CompilationUnit asyncUnit, CompilationUnit guardUnit, Type guardType) {
+    this.generator = generator;
+
+    String interfaceName = generator.getInterfaceDeclaration().getName();
+    this.asyncInterface = asyncUnit.declareInterface(interfaceName + "Async");
+    asyncInterface.setModifiers(Modifier.PUBLIC);
+    this.guardClass = guardUnit.declareClass(interfaceName + "AsyncGuard");
+    guardClass.setModifiers(Modifier.PUBLIC);
+    guardClass.addInterface(asyncInterface.toType());
+    this.guard = guardClass.declareField(guardType, "guard");
+    guard.setModifiers(Modifier.PRIVATE, Modifier.FINAL);
+    this.executor = guardClass.declareField(Executor.class, "executor");
+    executor.setModifiers(Modifier.PRIVATE, Modifier.FINAL);
+  }
+
+  public InterfaceDeclaration generate() {
+    generateConstructor();
+    generateToString();
+    generateMethods();
+    return asyncInterface;
+  }
+
+  // public DemoAsyncGuard(Demo demo, Executor executor)
+  private void generateConstructor() {
+    String other = generator.buildOtherName();
+    MethodDeclaration constructor = new MethodDeclaration();
+    constructor.setModifiers(Modifier.PUBLIC);
+    constructor.setName("<init>");
+    constructor.declareParameter(generator.getInterfaceDeclaration().toType(), other);
+    constructor.declareParameter(Executor.class, executor.getName());
+    Type guardType = guard.getType();
+    constructor.addStatement("this.{{$}} = new {{L}}({{$}})", guard.getName(), guardType, other);
+    constructor.addStatement("this.{{$}} = {{$}}", executor.getName(), executor.getName());
+    guardClass.declareMethod(constructor);
+  }
+
+  private void generateToString() {
+    MethodDeclaration toString = guardClass.declareMethod(String.class, "toString");
+    toString.addAnnotation(Override.class);
+    toString.setModifiers(Modifier.PUBLIC);
+    toString.addStatement("return this.{{$}}.toString()", guard.getName());
+  }
+
+  private void generateMethods() {
+    for (MethodDeclaration interfaceMethod : generator.getInterfaceDeclaration().getMethods()) {
+      if (isMethodBase(interfaceMethod)) {
+        continue;
+      }
+      asyncInterface.declareMethod(createAsyncMethod(interfaceMethod));
+      MethodDeclaration method = guardClass.declareMethod(createAsyncMethod(interfaceMethod));
+      method.addAnnotation(Override.class);
+      method.setModifiers(Modifier.PUBLIC);
+      method.setBody(new Block().add(listing -> applySubmit(listing, interfaceMethod)));
+    }
+  }
+
+  // return CompletableFuture.supplyAsync(() -> this.guard.method(arguments), this.executor);
+  private Listing applySubmit(Listing listing, MethodDeclaration method) {
+    String factory = isMethodReturn(method) ? "supplyAsync" : "runAsync";
+    listing.eval("return {{N}}.{{$}}(", CompletableFuture.class, factory);
+    listing.eval("() -> this.{{$}}.{{$}}(", guard.getName(), method.getName());
+    boolean journaled = !isMethodVolatile(method);
+    String separator = "";
+    for (MethodParameter parameter : method.getParameters()) {
+      listing.add(separator);
+      // the stash stamps the time of journaled calls
+      listing.add(journaled && isParameterTime(parameter) ? "0L" : parameter.getName());
+      separator = ", ";
+    }
+    listing.eval("), this.{{$}}){{;}}", executor.getName());
+    return listing;
+  }
+}
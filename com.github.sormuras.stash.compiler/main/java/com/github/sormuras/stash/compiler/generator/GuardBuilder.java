@@ -0,0 +1,177 @@
+package com.github.sormuras.stash.compiler.generator;
+
+import static com.github.sormuras.stash.compiler.Tag.isMethodChainable;
+import static com.github.sormuras.stash.compiler.Tag.isMethodDirect;
+import static com.github.sormuras.stash.compiler.Tag.isMethodReturn;
+import static com.github.sormuras.stash.compiler.Tag.isMethodVolatile;
+
+import com.github.sormuras.beethoven.Listing;
+import com.github.sormuras.beethoven.type.Type;
+import com.github.sormuras.beethoven.unit.Block;
+import com.github.sormuras.beethoven.unit.CompilationUnit;
+import com.github.sormuras.beethoven.unit.FieldDeclaration;
+import com.github.sormuras.beethoven.unit.MethodDeclaration;
+import com.github.sormuras.beethoven.unit.NormalClassDeclaration;
+import com.github.sormuras.beethoven.unit.UnitTool;
+import com.github.sormuras.stash.compiler.Generator;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import javax.lang.model.element.Modifier;
+
+/**
+ * Builds a thread-safe wrapper executing journaled methods under a write lock and volatile methods
+ * under a read lock, or with an optimistic read first if the stash is configured to do so.
+ */
+public class GuardBuilder {
+
+  final Generator generator;
+
+  final NormalClassDeclaration guardClass;
+  final FieldDeclaration lock;
+  final FieldDeclaration other;
+  final boolean optimistic;
+  final String result;
+  final String stamp;
+
+  public GuardBuilder(Generator generator, CompilationUnit compilationUnit) {
+    this.generator = generator;
+    this.optimistic = generator.isOptimistic();
+    this.result = "$$result";
+    this.stamp = "$$stamp";
+
+    this.guardClass = createGuardClass(compilationUnit);
+    this.lock = createGuardFieldLock();
+    this.other = createGuardFieldOther();
+  }
+
+  private NormalClassDeclaration createGuardClass(CompilationUnit compilationUnit) {
+    String interfaceName = generator.getInterfaceDeclaration().getName();
+    NormalClassDeclaration guardClass = compilationUnit.declareClass(interfaceName + "Guard");
+    guardClass.setModifiers(Modifier.PUBLIC);
+    guardClass.addInterface(generator.getInterfaceDeclaration().toType());
+    return guardClass;
+  }
+
+  private FieldDeclaration createGuardFieldLock() {
+    Class<?> type = optimistic ? StampedLock.class : ReadWriteLock.class;
+    FieldDeclaration lock = guardClass.declareField(type, "lock");
+    lock.setModifiers(Modifier.PRIVATE, Modifier.FINAL);
+    return lock;
+  }
+
+  private FieldDeclaration createGuardFieldOther() {
+    Type otherType = generator.getInterfaceDeclaration().toType();
+    String otherName = generator.buildOtherName();
+    FieldDeclaration other = guardClass.declareField(otherType, otherName);
+    other.setModifiers(Modifier.PRIVATE, Modifier.FINAL);
+    return other;
+  }
+
+  public NormalClassDeclaration generate() {
+    generateConstructor();
+    generateToString();
+    generateMethods();
+    return guardClass;
+  }
+
+  // public DemoGuard(Demo demo) { this.demo = demo; this.lock = new ...Lock(); }
+  private void generateConstructor() {
+    Class<?> type = optimistic ? StampedLock.class : ReentrantReadWriteLock.class;
+    MethodDeclaration constructor = new MethodDeclaration();
+    constructor.setModifiers(Modifier.PUBLIC);
+    constructor.setName("<init>");
+    constructor.declareParameter(other.getType(), other.getName());
+    constructor.addStatement("this.{{$}} = {{$}}", other.getName(), other.getName());
+    constructor.addStatement("this.{{$}} = new {{N}}()", lock.getName(), type);
+    guardClass.declareMethod(constructor);
+  }
+
+  private void generateToString() {
+    MethodDeclaration toString = guardClass.declareMethod(String.class, "toString");
+    toString.addAnnotation(Override.class);
+    toString.setModifiers(Modifier.PUBLIC);
+    toString.addStatement("return this.{{$}}.toString()", other.getName());
+  }
+
+  private void generateMethods() {
+    for (MethodDeclaration interfaceMethod : generator.getInterfaceDeclaration().getMethods()) {
+      MethodDeclaration method = guardClass.declareMethod(UnitTool.override(interfaceMethod, true));
+      method.getModifiers().remove(Modifier.DEFAULT);
+      method.setBody(new Block().add(listing -> applyGuardedCall(listing, interfaceMethod)));
+    }
+  }
+
+  private Listing applyGuardedCall(Listing listing, MethodDeclaration method) {
+    if (isMethodDirect(method)) {
+      return applyCall(listing, method);
+    }
+    boolean read = isMethodVolatile(method);
+    if (!optimistic) {
+      String acquire = read ? "readLock" : "writeLock";
+      listing.eval("this.{{$}}.{{$}}().lock(){{;}}", lock.getName(), acquire);
+      listing.add("try {").newline().indent(1);
+      applyCall(listing, method);
+      listing.indent(-1).add("} finally {").newline().indent(1);
+      listing.eval("this.{{$}}.{{$}}().unlock(){{;}}", lock.getName(), acquire);
+      listing.indent(-1).add('}').newline();
+      return listing;
+    }
+    boolean tryOptimistic = read && isMethodReturn(method);
+    if (tryOptimistic) {
+      applyOptimisticCall(listing, method);
+    }
+    String acquire = read ? "readLock" : "writeLock";
+    String release = read ? "unlockRead" : "unlockWrite";
+    listing.add(tryOptimistic ? "" : "long ");
+    listing.eval("{{$}} = this.{{$}}.{{$}}(){{;}}", stamp, lock.getName(), acquire);
+    listing.add("try {").newline().indent(1);
+    applyCall(listing, method);
+    listing.indent(-1).add("} finally {").newline().indent(1);
+    listing.eval("this.{{$}}.{{$}}({{$}}){{;}}", lock.getName(), release, stamp);
+    listing.indent(-1).add('}').newline();
+    return listing;
+  }
+
+  // a failed validation, even one of an exceptional result, falls through to the read lock
+  private void applyOptimisticCall(Listing listing, MethodDeclaration method) {
+    String lock = "this." + this.lock.getName();
+    listing.eval("long {{$}} = {{$}}.tryOptimisticRead(){{;}}", stamp, lock);
+    listing.eval("if ({{$}} != 0L) {", stamp).newline().indent(1);
+    listing.add("try {").newline().indent(1);
+    listing.eval("{{L}} {{$}} = this.{{$}}.", method.getReturnType(), result, other.getName());
+    method.applyCall(listing);
+    listing.add(';').newline();
+    listing.eval("if ({{$}}.validate({{$}})) {", lock, stamp).newline().indent(1);
+    applyReturn(listing, method);
+    listing.indent(-1).add('}').newline();
+    listing.indent(-1).add("} catch (RuntimeException $$exception) {").newline().indent(1);
+    listing.eval("if ({{$}}.validate({{$}})) {", lock, stamp).newline().indent(1);
+    listing.add("throw $$exception;").newline();
+    listing.indent(-1).add('}').newline();
+    listing.indent(-1).add('}').newline();
+    listing.indent(-1).add('}').newline();
+  }
+
+  private Listing applyCall(Listing listing, MethodDeclaration method) {
+    if (!isMethodReturn(method)) {
+      return generator.applyCall(listing, method);
+    }
+    if (!isMethodChainable(method)) {
+      listing.add("return ");
+      return generator.applyCall(listing, method);
+    }
+    listing.eval("{{L}} {{$}} = ", method.getReturnType(), result);
+    generator.applyCall(listing, method);
+    return applyReturn(listing, method);
+  }
+
+  // chainable methods return this guard instead of the guarded instance
+  private Listing applyReturn(Listing listing, MethodDeclaration method) {
+    listing.add("return ").add(result);
+    if (isMethodChainable(method)) {
+      listing.eval(" == this.{{$}} ? this : {{$}}", other.getName(), result);
+    }
+    return listing.add(';').newline();
+  }
+}
@@ -0,0 +1,176 @@
+package com.github.sormuras.stash.compiler.generator;
+
+import static com.github.sormuras.stash.compiler.Tag.isMethodBase;
+import static com.github.sormuras.stash.compiler.Tag.isMethodReturn;
+import static com.github.sormuras.stash.compiler.Tag.isMethodVolatile;
+import static com.github.sormuras.stash.compiler.Tag.isParameterTime;
+
+import com.github.sormuras.beethoven.Listing;
+import com.github.sormuras.beethoven.type.ClassType;
+import com.github.sormuras.beethoven.type.Type;
+import com.github.sormuras.beethoven.unit.Block;
+import com.github.sormuras.beethoven.unit.CompilationUnit;
+import com.github.sormuras.beethoven.unit.FieldDeclaration;
+import com.github.sormuras.beethoven.unit.MethodDeclaration;
+import com.github.sormuras.beethoven.unit.MethodParameter;
+import com.github.sormuras.beethoven.unit.NormalClassDeclaration;
+import com.github.sormuras.stash.Pipeline;
+import com.github.sormuras.stash.compiler.Generator;
+import com.github.sormuras.stash.compiler.Stashlet;
+import javax.lang.model.element.Modifier;
+
+/**
+ * Builds an asynchronous front-end encoding calls into the slots of a {@link Pipeline} whose
+ * single applier thread journals and executes them via the stash.
+ */
+public class PipelineBuilder {
+
+  final Generator generator;
+
+  final NormalClassDeclaration pipelineClass;
+  final FieldDeclaration stash;
+  final FieldDeclaration pipeline;
+  final String target;
+
+  public PipelineBuilder(
+      Generator generator, CompilationUnit compilationUnit, Type stashType, Type asyncType) {
+    this.generator = generator;
+    this.target = "$$target";
+
+    this.pipelineClass = createPipelineClass(compilationUnit, asyncType);
+    this.stash = createPipelineFieldStash(stashType);
+    this.pipeline = createPipelineFieldPipeline();
+  }
+
+  private NormalClassDeclaration createPipelineClass(CompilationUnit unit, Type asyncType) {
+    String interfaceName = generator.getInterfaceDeclaration().getName();
+    NormalClassDeclaration pipelineClass = unit.declareClass(interfaceName + "Pipeline");
+    pipelineClass.setModifiers(Modifier.PUBLIC);
+    pipelineClass.addInterface(asyncType);
+    pipelineClass.addInterface(ClassType.type(AutoCloseable.class));
+    return pipelineClass;
+  }
+
+  private FieldDeclaration createPipelineFieldStash(Type stashType) {
+    FieldDeclaration stash = pipelineClass.declareField(stashType, "stash");
+    stash.setModifiers(Modifier.PRIVATE, Modifier.FINAL);
+    return stash;
+  }
+
+  private FieldDeclaration createPipelineFieldPipeline() {
+    FieldDeclaration pipeline = pipelineClass.declareField(Pipeline.class, "pipeline");
+    pipeline.setModifiers(Modifier.PRIVATE, Modifier.FINAL);
+    return pipeline;
+  }
+
+  public NormalClassDeclaration generate() {
+    generateConstructors();
+    generateStash();
+    generateClose();
+    generateToString();
+    generateMethods();
+    return pipelineClass;
+  }
+
+  // public DemoPipeline(DemoStash stash[, int capacity])
+  private void generateConstructors() {
+    MethodDeclaration defaults = new MethodDeclaration();
+    defaults.setModifiers(Modifier.PUBLIC);
+    defaults.setName("<init>");
+    defaults.declareParameter(stash.getType(), stash.getName());
+    defaults.addStatement("this({{$}}, {{N}}.DEFAULT_CAPACITY)", stash.getName(), Pipeline.class);
+    pipelineClass.declareMethod(defaults);
+
+    MethodDeclaration constructor = new MethodDeclaration();
+    constructor.setModifiers(Modifier.PUBLIC);
+    constructor.setName("<init>");
+    constructor.declareParameter(stash.getType(), stash.getName());
+    constructor.declareParameter(int.class, "capacity");
+    constructor.addStatement("this.{{$}} = {{$}}", stash.getName(), stash.getName());
+    // slots hold no more than the journal accepts, a wrapped buffer bounds it by the room left
+    String size = stash.getName() + ".journal().entryCapacity()";
+    constructor.addStatement(
+        "this.{{$}} = new {{N}}({{$}}::execute, capacity, {{$}})",
+        pipeline.getName(),
+        Pipeline.class,
+        stash.getName(),
+        size);
+    pipelineClass.declareMethod(constructor);
+  }
+
+  private void generateStash() {
+    MethodDeclaration method = pipelineClass.declareMethod(stash.getType(), stash.getName());
+    method.setModifiers(Modifier.PUBLIC);
+    method.addStatement("return this.{{$}}", stash.getName());
+  }
+
+  private void generateClose() {
+    MethodDeclaration close = pipelineClass.declareMethod(void.class, "close");
+    close.addAnnotation(Override.class);
+    close.setModifiers(Modifier.PUBLIC);
+    close.addStatement("this.{{$}}.close()", pipeline.getName());
+  }
+
+  private void generateToString() {
+    MethodDeclaration toString = pipelineClass.declareMethod(String.class, "toString");
+    toString.addAnnotation(Override.class);
+    toString.setModifiers(Modifier.PUBLIC);
+    toString.addStatement("return this.{{$}}.toString()", pipeline.getName());
+  }
+
+  private void generateMethods() {
+    for (MethodDeclaration interfaceMethod : generator.getInterfaceDeclaration().getMethods()) {
+      if (isMethodBase(interfaceMethod)) {
+        continue;
+      }
+      MethodDeclaration method =
+          pipelineClass.declareMethod(AsyncBuilder.createAsyncMethod(interfaceMethod));
+      method.addAnnotation(Override.class);
+      method.setModifiers(Modifier.PUBLIC);
+      if (isMethodVolatile(interfaceMethod)) {
+        method.setBody(new Block().add(listing -> applyQuery(listing, interfaceMethod)));
+        continue;
+      }
+      String hash = generator.buildMethodHash(interfaceMethod);
+      method.setBody(new Block().add(listing -> applySubmit(listing, interfaceMethod, hash)));
+    }
+  }
+
+  // return this.pipeline.query(() -> this.stash.method(arguments));
+  private Listing applyQuery(Listing listing, MethodDeclaration method) {
+    listing.eval("return this.{{$}}.query(() -> ", pipeline.getName());
+    if (!isMethodReturn(method)) {
+      listing.add('{').newline().indent(1);
+    }
+    listing.eval("this.{{$}}.", stash.getName());
+    method.applyCall(listing);
+    if (!isMethodReturn(method)) {
+      listing.add(';').newline();
+      listing.add("return null;").newline();
+      listing.indent(-1).add('}');
+    }
+    return listing.add(");").newline();
+  }
+
+  // return this.pipeline.submit($$target -> { $$target.putInt(hash); ... });
+  private Listing applySubmit(Listing listing, MethodDeclaration method, String hash) {
+    listing.eval("return this.{{$}}.submit(", pipeline.getName());
+    listing.add(target).add(" -> {").newline().indent(1);
+    listing.eval("{{$}}.putInt({{$}}){{;}}", target, hash);
+    if (generator.findTimeParameter(method).isPresent()) {
+      // placeholder, the applier thread stamps the time
+      listing.eval("{{$}}.putLong(0L){{;}}", target);
+    }
+    for (MethodParameter parameter : method.getParameters()) {
+      if (isParameterTime(parameter)) {
+        continue;
+      }
+      Stashlet stashlet = generator.resolve(parameter);
+      stashlet.stash(listing, target, parameter.getName());
+      listing.add(';');
+      listing.newline();
+    }
+    listing.indent(-1).add("});").newline();
+    return listing;
+  }
+}
@@ -1,15 +1,26 @@
 package com.github.sormuras.stash.compiler.generator;
 
+import static com.github.sormuras.stash.compiler.Tag.isMethodReturn;
 import static com.github.sormuras.stash.compiler.Tag.isMethodVolatile;
 
+import com.github.sormuras.beethoven.Listing;
+import com.github.sormuras.beethoven.type.ClassType;
 import com.github.sormuras.beethoven.type.Type;
+import com.github.sormuras.beethoven.unit.Block;
 import com.github.sormuras.beethoven.unit.CompilationUnit;
 import com.github.sormuras.beethoven.unit.FieldDeclaration;
 import com.github.sormuras.beethoven.unit.MethodDeclaration;
 import com.github.sormuras.beethoven.unit.NormalClassDeclaration;
 import com.github.sormuras.beethoven.unit.UnitTool;
+import com.github.sormuras.stash.Journal;
+import com.github.sormuras.stash.Lanes;
+import com.github.sormuras.stash.Metrics;
+import com.github.sormuras.stash.StashAppend;
 import com.github.sormuras.stash.compiler.Generator;
+import com.github.sormuras.stash.compiler.Tag;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.time.Clock;
 import java.util.HashSet;
 import java.util.Set;
@@ -23,7 +34,11 @@ public class StashBuilder {
   final FieldDeclaration buffer;
   final FieldDeclaration counter;
   final FieldDeclaration clock;
+  final FieldDeclaration journal;
+  final FieldDeclaration metrics;
   final FieldDeclaration other;
+  final String spawn;
+  final String fork;
 
   public StashBuilder(Generator generator, CompilationUnit compilationUnit) {
     this.generator = generator;
@@ -32,7 +47,11 @@ public class StashBuilder {
     this.counter = createStashFieldCounter();
     this.buffer = createStashFieldBuffer();
     this.clock = createStashFieldClock();
+    this.journal = createStashFieldJournal();
+    this.metrics = generator.isMetrics() ? createStashFieldMetrics() : null;
     this.other = createStashFieldOther();
+    this.spawn = "spawn";
+    this.fork = "fork";
   }
 
   private NormalClassDeclaration createStashClass(CompilationUnit compilationUnit) {
@@ -62,6 +81,18 @@ public class StashBuilder {
     return buffer;
   }
 
+  private FieldDeclaration createStashFieldJournal() {
+    FieldDeclaration journal = stashClass.declareField(Journal.class, "journal");
+    journal.setModifiers(Modifier.PRIVATE, Modifier.FINAL);
+    return journal;
+  }
+
+  private FieldDeclaration createStashFieldMetrics() {
+    FieldDeclaration metrics = stashClass.declareField(Metrics.class, "metrics");
+    metrics.setModifiers(Modifier.PRIVATE, Modifier.FINAL);
+    return metrics;
+  }
+
   private FieldDeclaration createStashFieldOther() {
     Type otherType = generator.getInterfaceDeclaration().toType();
     String otherName = generator.buildOtherName();
@@ -72,15 +103,91 @@ public class StashBuilder {
 
   public NormalClassDeclaration generate() {
     generateConstructor();
+    generateOpen(false);
+    generateOpen(true);
+    generateJournal();
+    if (metrics != null) {
+      generateMetrics();
+    }
+    generateSnapshot();
     generateToString();
+    generateSpawn();
+    if (generator.isPartitioned()) {
+      generateFork();
+    }
+    generateExecute();
     generateMethods();
     return stashClass;
   }
 
+  // public DemoStash(Demo demo, ByteBuffer buffer), writes the journal format of Journal.wrap
   private void generateConstructor() {
+    MethodDeclaration wrap = new MethodDeclaration();
+    wrap.setModifiers(Modifier.PUBLIC);
+    wrap.setName("<init>");
+    wrap.declareParameter(other.getType(), other.getName());
+    wrap.declareParameter(ByteBuffer.class, buffer.getName());
+    wrap.setBody(
+        new Block()
+            .add(
+                listing ->
+                    listing.eval(
+                        "this({{$}}, {{N}}.wrap({{$}})){{;}}",
+                        other.getName(),
+                        Journal.class,
+                        buffer.getName())));
+    stashClass.declareMethod(wrap);
     stashClass.declareMethod(new StashConstructor(this));
   }
 
+  // public static DemoStash open(Demo demo, Path directory[, Options options]) throws IOException
+  private void generateOpen(boolean withOptions) {
+    MethodDeclaration open = stashClass.declareMethod(stashClass.toType(), "open");
+    open.setModifiers(Modifier.PUBLIC, Modifier.STATIC);
+    open.declareParameter(other.getType(), other.getName());
+    open.declareParameter(Path.class, "directory");
+    if (withOptions) {
+      open.declareParameter(Journal.Options.class, "options");
+    }
+    open.addThrows(ClassType.type(IOException.class));
+    String arguments = withOptions ? "directory, options" : "directory";
+    open.setBody(
+        new Block()
+            .add(
+                listing ->
+                    listing.eval(
+                        "return new {{$}}({{$}}, {{N}}.open({{$}})){{;}}",
+                        stashClass.getName(),
+                        other.getName(),
+                        Journal.class,
+                        arguments)));
+  }
+
+  private void generateJournal() {
+    MethodDeclaration method = stashClass.declareMethod(Journal.class, journal.getName());
+    method.setModifiers(Modifier.PUBLIC);
+    method.addStatement("return this.{{$}}", journal.getName());
+  }
+
+  private void generateMetrics() {
+    MethodDeclaration method = stashClass.declareMethod(Metrics.class, metrics.getName());
+    method.setModifiers(Modifier.PUBLIC);
+    method.addStatement("return this.{{$}}", metrics.getName());
+  }
+
+  // index of the method's counters, methods are counted in declaration order
+  String buildMetricsIndex(MethodDeclaration method) {
+    return String.valueOf(generator.getInterfaceDeclaration().getMethods().indexOf(method));
+  }
+
+  private void generateSnapshot() {
+    MethodDeclaration method = stashClass.declareMethod(long.class, "snapshot");
+    method.setModifiers(Modifier.PUBLIC);
+    method.addThrows(ClassType.type(IOException.class));
+    String journalName = journal.getName();
+    method.addStatement("return this.{{$}}.snapshot(this.{{$}})", journalName, other.getName());
+  }
+
   private void generateToString() {
     MethodDeclaration toString = stashClass.declareMethod(String.class, "toString");
     toString.addAnnotation(Override.class);
@@ -88,6 +195,131 @@ public class StashBuilder {
     toString.addStatement("return this.{{$}}.toString()", other.getName());
   }
 
+  // private void spawn(ByteBuffer source) { switch (source.getInt()) {...} }
+  private void generateSpawn() {
+    MethodDeclaration method = stashClass.declareMethod(void.class, spawn);
+    method.setModifiers(Modifier.PRIVATE);
+    method.declareParameter(ByteBuffer.class, "source");
+    method.setBody(new Block().add(this::applySpawnSwitch));
+  }
+
+  private Listing applySpawnSwitch(Listing listing) {
+    listing.add("int hash = source.getInt();").newline();
+    listing.add("switch (hash) {").newline().indent(1);
+    for (MethodDeclaration method : generator.getInterfaceDeclaration().getMethods()) {
+      if (isMethodVolatile(method)) {
+        continue;
+      }
+      String hash = generator.buildMethodHash(method);
+      String call = generator.buildSpawnMethodName(method, hash);
+      listing.add("case ").add(hash).add(": ").add(call).add("(source); break;").newline();
+    }
+    listing.add("default: throw new AssertionError(hash);").newline();
+    listing.indent(-1).add("}").newline();
+    return listing;
+  }
+
+  // private void fork(Lanes lanes, ByteBuffer source) { switch (source.getInt()) {...} }
+  private void generateFork() {
+    MethodDeclaration method = stashClass.declareMethod(void.class, fork);
+    method.setModifiers(Modifier.PRIVATE);
+    method.declareParameter(Lanes.class, "lanes");
+    method.declareParameter(ByteBuffer.class, "source");
+    method.setBody(new Block().add(this::applyForkSwitch));
+  }
+
+  // keyed calls are forked to their lane, all others wait for the lanes to become idle
+  private Listing applyForkSwitch(Listing listing) {
+    listing.add("int hash = source.getInt();").newline();
+    listing.add("switch (hash) {").newline().indent(1);
+    for (MethodDeclaration method : generator.getInterfaceDeclaration().getMethods()) {
+      if (isMethodVolatile(method)) {
+        continue;
+      }
+      String hash = generator.buildMethodHash(method);
+      listing.add("case ").add(hash).add(": ");
+      if (generator.findKeyParameter(method).isPresent()) {
+        String call = generator.buildForkMethodName(method, hash);
+        listing.add(call).add("(lanes, source); break;").newline();
+        continue;
+      }
+      String call = generator.buildSpawnMethodName(method, hash);
+      listing.add("lanes.await(); ").add(call).add("(source); break;").newline();
+    }
+    listing.add("default: throw new AssertionError(hash);").newline();
+    listing.indent(-1).add("}").newline();
+    return listing;
+  }
+
+  // Object execute(ByteBuffer source) { ...; this.counter = this.journal.append(...); ... }
+  private void generateExecute() {
+    MethodDeclaration method = stashClass.declareMethod(Object.class, "execute");
+    method.declareParameter(ByteBuffer.class, "source");
+    method.setBody(new Block().add(this::applyExecuteSwitch));
+  }
+
+  // applies an encoded entry on behalf of a pipeline, stamping time as late as possible
+  private Listing applyExecuteSwitch(Listing listing) {
+    if (generator.getInterfaceDeclaration().getMethods().stream().allMatch(Tag::isMethodVolatile)) {
+      return listing.add("throw new AssertionError(source.getInt());").newline();
+    }
+    listing.eval("{{N}} event = {{N}}.start(){{;}}", StashAppend.class, StashAppend.class);
+    listing.add("Object result;").newline();
+    listing.add("String signature;").newline();
+    if (metrics != null) {
+      listing.add("int method;").newline();
+      listing.add("long nanos;").newline();
+    }
+    if (generator.isTimed()) {
+      listing.add("long time = Long.MIN_VALUE;").newline();
+    }
+    // fail before the call changes any state, if the journal can't take the entry
+    listing.eval("this.{{$}}.reserve(source.limit()){{;}}", journal.getName());
+    listing.add("int hash = source.getInt();").newline();
+    listing.add("switch (hash) {").newline().indent(1);
+    for (MethodDeclaration method : generator.getInterfaceDeclaration().getMethods()) {
+      if (isMethodVolatile(method)) {
+        continue;
+      }
+      String hash = generator.buildMethodHash(method);
+      String call = generator.buildSpawnMethodName(method, hash);
+      listing.add("case ").add(hash).add(':').newline().indent(1);
+      String signature = generator.buildMethodSignature(method);
+      listing.add("signature = \"").add(signature).add("\";").newline();
+      if (generator.findTimeParameter(method).isPresent()) {
+        String stamp = "source.putLong(Integer.BYTES, time = this.{{$}}.millis()){{;}}";
+        listing.eval(stamp, clock.getName());
+      }
+      if (metrics != null) {
+        listing.add("nanos = System.nanoTime();").newline();
+      }
+      if (isMethodReturn(method)) {
+        listing.add("result = ");
+      }
+      listing.add(call).add("(source);").newline();
+      if (!isMethodReturn(method)) {
+        listing.add("result = null;").newline();
+      }
+      if (metrics != null) {
+        listing.add("nanos = System.nanoTime() - nanos;").newline();
+        listing.add("method = ").add(buildMetricsIndex(method)).add(';').newline();
+      }
+      listing.add("break;").newline().indent(-1);
+    }
+    listing.add("default:").newline().indent(1);
+    listing.add("throw new AssertionError(hash);").newline().indent(-1);
+    listing.indent(-1).add("}").newline();
+    String time = generator.isTimed() ? ", time" : "";
+    String append = "this.{{$}} = this.{{$}}.append(source.rewind(){{$}}){{;}}";
+    listing.eval(append, counter.getName(), journal.getName(), time);
+    if (metrics != null) {
+      listing.eval("this.{{$}}.record(method, source.limit(), nanos){{;}}", metrics.getName());
+    }
+    listing.eval("{{N}}.finish(event, signature, source.limit()){{;}}", StashAppend.class);
+    listing.eval("return result == this.{{$}} ? this : result{{;}}", other.getName());
+    return listing;
+  }
+
   private void generateMethods() {
     Set<String> hashes = new HashSet<>();
     for (MethodDeclaration interfaceMethod : generator.getInterfaceDeclaration().getMethods()) {
@@ -100,6 +332,9 @@ public class StashBuilder {
         continue;
       }
       generateMethodRespawn(interfaceMethod, hash);
+      if (generator.findKeyParameter(interfaceMethod).isPresent()) {
+        generateMethodFork(interfaceMethod, hash);
+      }
     }
   }
 
@@ -113,6 +348,16 @@ public class StashBuilder {
     String name = generator.buildSpawnMethodName(interfaceMethod, hash);
     MethodDeclaration method = stashClass.declareMethod(interfaceMethod.getReturnType(), name);
     method.setModifiers(Modifier.PRIVATE);
+    method.declareParameter(ByteBuffer.class, "source");
     method.setBody(new StashSpawnMethodBlock(this, interfaceMethod));
   }
+
+  private void generateMethodFork(MethodDeclaration interfaceMethod, String hash) {
+    String name = generator.buildForkMethodName(interfaceMethod, hash);
+    MethodDeclaration method = stashClass.declareMethod(void.class, name);
+    method.setModifiers(Modifier.PRIVATE);
+    method.declareParameter(Lanes.class, "lanes");
+    method.declareParameter(ByteBuffer.class, "source");
+    method.setBody(new StashSpawnMethodBlock(this, interfaceMethod, true));
+  }
 }
@@ -1,13 +1,16 @@
 package com.github.sormuras.stash.compiler.generator;
 
-import static com.github.sormuras.stash.compiler.Tag.isMethodVolatile;
-
 import com.github.sormuras.beethoven.Listing;
 import com.github.sormuras.beethoven.Name;
 import com.github.sormuras.beethoven.unit.Block;
 import com.github.sormuras.beethoven.unit.MethodDeclaration;
+import com.github.sormuras.stash.Journal;
+import com.github.sormuras.stash.JournalMonitor;
+import com.github.sormuras.stash.Lanes;
+import com.github.sormuras.stash.Metrics;
 import java.nio.ByteBuffer;
 import java.time.Clock;
+import java.util.StringJoiner;
 import javax.lang.model.element.Modifier;
 
 class StashConstructor extends MethodDeclaration {
@@ -16,17 +19,19 @@ class StashConstructor extends MethodDeclaration {
   private final String buffer;
   private final String counter;
   private final String clock;
+  private final String journal;
 
   StashConstructor(StashBuilder builder) {
     this.builder = builder;
     this.buffer = builder.buffer.getName();
     this.counter = builder.counter.getName();
     this.clock = builder.clock.getName();
+    this.journal = builder.journal.getName();
 
     setModifiers(Modifier.PUBLIC);
     setName("<init>");
     declareParameter(builder.other.getType(), builder.other.getName());
-    declareParameter(ByteBuffer.class, buffer);
+    declareParameter(Journal.class, journal);
     setBody(new Body());
   }
 
@@ -48,26 +53,38 @@ class StashConstructor extends MethodDeclaration {
     public Listing apply(Listing listing) {
       listing.add('{').newline().indent(1);
 
-      assign(listing, builder.other.getName());
-      assign(listing, buffer);
-      assign(listing, counter, buffer + ".getLong()");
+      String other = builder.other.getName();
+      assign(listing, other, journal + ".restore(" + other + ")");
+      assign(listing, journal);
       assign(listing, clock, Name.reflect(Clock.class, "systemUTC"), "()");
-
-      listing.add("for (long index = 0; index < counter; index++) {").newline().indent(1);
-      listing.add("int hash = ").add(buffer).add(".getInt();").newline();
-      listing.add("switch (hash) {").newline().indent(1);
-      for (MethodDeclaration method : builder.generator.getInterfaceDeclaration().getMethods()) {
-        if (isMethodVolatile(method)) {
-          continue;
+      if (builder.metrics != null) {
+        StringJoiner names = new StringJoiner(", ", "(", ")");
+        for (MethodDeclaration method : builder.generator.getInterfaceDeclaration().getMethods()) {
+          names.add('"' + builder.generator.buildMethodSignature(method) + '"');
         }
-        String hash = builder.generator.buildMethodHash(method);
-        String call = builder.generator.buildSpawnMethodName(method, hash);
-        listing.add("case ").add(hash).add(": ").add(call).add("(); break;").newline();
+        String metrics = builder.metrics.getName();
+        listing.eval("this.{{$}} = new {{N}}{{$}}{{;}}", metrics, Metrics.class, names.toString());
+      }
+      String timer = builder.generator.getIo().getName() + "::time";
+      if (builder.generator.isPartitioned()) {
+        Name replay = Name.reflect(Lanes.class, "replay");
+        timer = builder.generator.isTimed() ? timer : "source -> Long.MIN_VALUE";
+        String spawners = "this::" + builder.spawn + ", " + timer + ", this::" + builder.fork;
+        assign(listing, counter, replay, "(" + journal + ", this." + other + ", " + spawners + ")");
+      } else if (builder.generator.isTimed()) {
+        assign(listing, counter, journal + ".replay(this::" + builder.spawn + ", " + timer + ")");
+      } else {
+        assign(listing, counter, journal + ".replay(this::" + builder.spawn + ")");
+      }
+      // allocated after replaying, so a wrapped buffer bounds it by the room left
+      Name allocate = Name.reflect(ByteBuffer.class, "allocate");
+      assign(listing, buffer, allocate, "(" + journal + ".entryCapacity())");
+      if (builder.generator.isMonitor()) {
+        String type = builder.generator.getInterfaceDeclaration().getName();
+        // no snapshotter: the monitor's thread can't synchronize with the stash's callers
+        String register = "{{N}}.register(this.{{$}}, \"{{$}}\", null){{;}}";
+        listing.eval(register, JournalMonitor.class, journal, type);
       }
-      listing.add("default: throw new AssertionError(index);").newline();
-      listing.indent(-1).add("}").newline(); // switch
-      listing.indent(-1).add("}").newline(); // for
-      listing.add(buffer).add(".limit(").add(buffer).add(".capacity());").newline();
 
       listing.indent(-1).add('}').newline();
       return listing;
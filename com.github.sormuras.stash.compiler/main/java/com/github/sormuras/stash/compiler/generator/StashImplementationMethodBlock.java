@@ -9,7 +9,9 @@ import com.github.sormuras.beethoven.Listing;
 import com.github.sormuras.beethoven.unit.Block;
 import com.github.sormuras.beethoven.unit.MethodDeclaration;
 import com.github.sormuras.beethoven.unit.MethodParameter;
+import com.github.sormuras.stash.StashAppend;
 import com.github.sormuras.stash.compiler.Stashlet;
+import java.util.Optional;
 
 public class StashImplementationMethodBlock extends Block {
 
@@ -31,6 +33,8 @@ public class StashImplementationMethodBlock extends Block {
     boolean verify = builder.generator.isVerify() && !method.getParameters().isEmpty();
     String buffer = "this." + builder.buffer.getName();
     if (record) {
+      listing.eval("{{N}} $$event = {{N}}.start(){{;}}", StashAppend.class, StashAppend.class);
+      listing.eval("{{$}}.clear(){{;}}", buffer);
       listing.eval("{{$}}.putInt({{$}}){{;}}", buffer, hash);
       if (verify) {
         listing.eval("{{$}}.mark(){{;}}", buffer);
@@ -52,11 +56,14 @@ public class StashImplementationMethodBlock extends Block {
         if (isParameterTime(parameter)) {
           continue;
         }
-        Stashlet stashlet = builder.generator.resolve(parameter.getType());
+        Stashlet stashlet = builder.generator.resolve(parameter);
         stashlet.stash(listing, buffer, parameter.getName());
         listing.add(';');
         listing.newline();
       }
+      // fail before the call changes any state, if the journal can't take the entry
+      String journal = "this." + builder.journal.getName();
+      listing.eval("{{$}}.reserve({{$}}.position()){{;}}", journal, buffer);
       if (verify) {
         listing.eval("{{$}}.reset(){{;}}", buffer);
       }
@@ -70,25 +77,57 @@ public class StashImplementationMethodBlock extends Block {
 
   private void applyCallAndReturn(Listing listing, String buffer) {
     boolean returns = isMethodReturn(method);
+    boolean metrics = builder.metrics != null;
+    String result = "$$result";
+    String start = "$$start";
+    if (metrics) {
+      listing.eval("long {{$}} = System.nanoTime(){{;}}", start);
+    }
     if (isMethodVolatile(method)) {
+      if (!metrics) {
+        if (returns) {
+          listing.add("return ");
+        }
+        builder.generator.applyCall(listing, method);
+        return;
+      }
       if (returns) {
-        listing.add("return ");
+        listing.eval("{{L}} {{$}} = ", method.getReturnType(), result);
       }
       builder.generator.applyCall(listing, method);
+      applyRecord(listing, "0", "System.nanoTime() - " + start);
+      if (returns) {
+        listing.add("return ").add(result).add(';').newline();
+      }
       return;
     }
-    String result = "$$result";
     if (returns) {
       listing.eval("{{L}} {{$}} = ", method.getReturnType(), result);
     }
     if (builder.generator.isVerify()) {
-      listing.eval("{{$}}(){{;}}", builder.generator.buildSpawnMethodName(method, hash));
+      String spawn = builder.generator.buildSpawnMethodName(method, hash);
+      listing.eval("{{$}}({{$}}){{;}}", spawn, buffer);
     } else {
       builder.generator.applyCall(listing, method);
     }
+    String nanos = "$$nanos";
+    if (metrics) {
+      listing.eval("long {{$}} = System.nanoTime() - {{$}}{{;}}", nanos, start);
+    }
 
     // "commit"
-    listing.eval("{{$}}.putLong(0, ++this.{{$}}){{;}}", buffer, builder.counter.getName());
+    String counter = builder.counter.getName();
+    String journal = builder.journal.getName();
+    listing.eval("this.{{$}} = this.{{$}}.append({{$}}.flip()", counter, journal, buffer);
+    Optional<MethodParameter> time = builder.generator.findTimeParameter(method);
+    time.ifPresent(arg -> listing.add(", ").add(arg.getName()));
+    listing.add(");").newline();
+    if (metrics) {
+      applyRecord(listing, buffer + ".limit()", nanos);
+    }
+    String signature = builder.generator.buildMethodSignature(method);
+    String finish = "{{N}}.finish($$event, \"{{$}}\", {{$}}.limit()){{;}}";
+    listing.eval(finish, StashAppend.class, signature, buffer);
 
     if (returns) {
       listing.add("return ").add(result);
@@ -99,4 +138,11 @@ public class StashImplementationMethodBlock extends Block {
       listing.newline();
     }
   }
+
+  // recorded after the call returned normally, failed calls aren't counted
+  private void applyRecord(Listing listing, String bytes, String nanos) {
+    String metrics = "this." + builder.metrics.getName();
+    String index = builder.buildMetricsIndex(method);
+    listing.eval("{{$}}.record({{$}}, {{$}}, {{$}}){{;}}", metrics, index, bytes, nanos);
+  }
 }
@@ -14,17 +14,23 @@ public class StashSpawnMethodBlock extends Block {
 
   private final StashBuilder builder;
   private final MethodDeclaration method;
+  private final boolean fork;
 
   StashSpawnMethodBlock(StashBuilder builder, MethodDeclaration method) {
+    this(builder, method, false);
+  }
+
+  StashSpawnMethodBlock(StashBuilder builder, MethodDeclaration method, boolean fork) {
     this.builder = builder;
     this.method = method;
+    this.fork = fork;
   }
 
   @Override
   public Listing apply(Listing listing) {
     listing.add('{').newline().indent(1);
 
-    String buffer = "this." + builder.buffer.getName();
+    String buffer = "source";
     builder
         .generator
         .findTimeParameter(method)
@@ -41,15 +47,23 @@ public class StashSpawnMethodBlock extends Block {
       listing.add(' ');
       listing.add('=');
       listing.add(' ');
-      Stashlet stashlet = builder.generator.resolve(type);
+      Stashlet stashlet = builder.generator.resolve(parameter);
       stashlet.spawn(listing, buffer, type);
       listing.add(';');
       listing.newline();
     }
-    if (isMethodReturn(method)) {
-      listing.add("return ");
+    if (fork) {
+      // decoded here, executed on the lane of the key's partition
+      String key = builder.generator.findKeyParameter(method).orElseThrow().getName();
+      listing.eval("lanes.execute({{$}}, () -> this.{{$}}.", key, builder.other.getName());
+      method.applyCall(listing);
+      listing.add(");").newline();
+    } else {
+      if (isMethodReturn(method)) {
+        listing.add("return ");
+      }
+      builder.generator.applyCall(listing, method);
     }
-    builder.generator.applyCall(listing, method);
 
     listing.indent(-1).add('}').newline();
     return listing;
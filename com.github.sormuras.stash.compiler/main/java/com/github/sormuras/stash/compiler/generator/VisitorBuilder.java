@@ -0,0 +1,167 @@
+package com.github.sormuras.stash.compiler.generator;
+
+import static com.github.sormuras.stash.compiler.Tag.isMethodVolatile;
+import static com.github.sormuras.stash.compiler.Tag.isParameterTime;
+import static javax.lang.model.element.Modifier.DEFAULT;
+import static javax.lang.model.element.Modifier.STATIC;
+
+import com.github.sormuras.beethoven.Listing;
+import com.github.sormuras.beethoven.type.Type;
+import com.github.sormuras.beethoven.unit.Block;
+import com.github.sormuras.beethoven.unit.CompilationUnit;
+import com.github.sormuras.beethoven.unit.InterfaceDeclaration;
+import com.github.sormuras.beethoven.unit.MethodDeclaration;
+import com.github.sormuras.beethoven.unit.MethodParameter;
+import com.github.sormuras.stash.Journal;
+import com.github.sormuras.stash.compiler.Generator;
+import com.github.sormuras.stash.compiler.Stashlet;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.lang.model.element.Modifier;
+
+/**
+ * Builds a visitor interface with one callback per journaled method and the static decoder methods
+ * of the IO interface that read entries without invoking an implementation.
+ */
+public class VisitorBuilder {
+
+  final Generator generator;
+
+  final InterfaceDeclaration visitorInterface;
+  final List<MethodDeclaration> journaled;
+
+  public VisitorBuilder(Generator generator, CompilationUnit compilationUnit) {
+    this.generator = generator;
+
+    String interfaceName = generator.getInterfaceDeclaration().getName();
+    this.visitorInterface = compilationUnit.declareInterface(interfaceName + "Visitor");
+    visitorInterface.setModifiers(Modifier.PUBLIC);
+    this.journaled =
+        generator.getInterfaceDeclaration().getMethods().stream()
+            .filter(method -> !isMethodVolatile(method))
+            .collect(Collectors.toList());
+  }
+
+  public InterfaceDeclaration generate() {
+    if (journaled.isEmpty()) {
+      return visitorInterface;
+    }
+    generateCallbacks();
+    generateDecode();
+    generateSkip();
+    generateScan();
+    generateScanFrom();
+    if (generator.isTimed()) {
+      generateTime();
+    }
+    return visitorInterface;
+  }
+
+  // default void store(int value) {}
+  private void generateCallbacks() {
+    for (MethodDeclaration interfaceMethod : journaled) {
+      String name = interfaceMethod.getName();
+      MethodDeclaration callback = visitorInterface.declareMethod(void.class, name, DEFAULT);
+      for (MethodParameter parameter : interfaceMethod.getParameters()) {
+        callback.declareParameter(parameter.getType(), parameter.getName());
+      }
+      callback.setBody(new Block());
+    }
+  }
+
+  // static void decode(ByteBuffer source, DemoVisitor visitor) { switch (source.getInt()) ... }
+  private void generateDecode() {
+    MethodDeclaration method = generator.getIo().declareMethod(void.class, "decode", STATIC);
+    method.declareParameter(ByteBuffer.class, "source");
+    method.declareParameter(visitorInterface.toType(), "visitor");
+    method.setBody(new Block().add(this::applyDecodeSwitch));
+  }
+
+  // static void skip(ByteBuffer source) { source.position(source.limit()); }
+  // the journal limits the buffer to the entry's framed length, so nothing needs to be decoded
+  private void generateSkip() {
+    MethodDeclaration method = generator.getIo().declareMethod(void.class, "skip", STATIC);
+    method.declareParameter(ByteBuffer.class, "source");
+    method.addStatement("source.position(source.limit())");
+  }
+
+  // static long scan(Journal journal, DemoVisitor visitor)
+  private void generateScan() {
+    MethodDeclaration method = generator.getIo().declareMethod(long.class, "scan", STATIC);
+    method.declareParameter(Journal.class, "journal");
+    method.declareParameter(visitorInterface.toType(), "visitor");
+    method.addStatement("return journal.scan(source -> decode(source, visitor))");
+  }
+
+  // static long scan(Journal journal, long sequence, DemoVisitor visitor)
+  private void generateScanFrom() {
+    MethodDeclaration method = generator.getIo().declareMethod(long.class, "scan", STATIC);
+    method.declareParameter(Journal.class, "journal");
+    method.declareParameter(long.class, "sequence");
+    method.declareParameter(visitorInterface.toType(), "visitor");
+    method.addStatement("return journal.scan(sequence, source -> decode(source, visitor))");
+  }
+
+  // static long time(ByteBuffer source) { switch (source.getInt(source.position())) ... }
+  private void generateTime() {
+    MethodDeclaration method = generator.getIo().declareMethod(long.class, "time", STATIC);
+    method.declareParameter(ByteBuffer.class, "source");
+    method.setBody(new Block().add(this::applyTimeSwitch));
+  }
+
+  // time is stashed right after the hash, the entry isn't consumed
+  private Listing applyTimeSwitch(Listing listing) {
+    listing.add("switch (source.getInt(source.position())) {").newline().indent(1);
+    for (MethodDeclaration method : journaled) {
+      if (generator.findTimeParameter(method).isPresent()) {
+        listing.add("case ").add(generator.buildMethodHash(method)).add(':').newline();
+      }
+    }
+    listing.indent(1);
+    listing.add("return source.getLong(source.position() + Integer.BYTES);").newline();
+    listing.indent(-1).add("default:").newline().indent(1);
+    listing.add("return Long.MIN_VALUE;").newline();
+    listing.indent(-1).indent(-1).add('}').newline();
+    return listing;
+  }
+
+  private Listing applyDecodeSwitch(Listing listing) {
+    listing.add("int hash = source.getInt();").newline();
+    listing.add("switch (hash) {").newline().indent(1);
+    for (MethodDeclaration method : journaled) {
+      String hash = generator.buildMethodHash(method);
+      listing.add("case ").add(hash).add(": {").newline().indent(1);
+      applyDecode(listing, method);
+      listing.add("visitor.").add(method.getName()).add('(');
+      listing.add(
+          method.getParameters().stream()
+              .map(MethodParameter::getName)
+              .collect(Collectors.joining(", ")));
+      listing.add(");").newline();
+      listing.add("return;").newline();
+      listing.indent(-1).add('}').newline();
+    }
+    listing.add("default:").newline().indent(1);
+    listing.add("throw new IllegalArgumentException(\"Unknown method hash: \" + hash);").newline();
+    listing.indent(-1).indent(-1).add('}').newline();
+    return listing;
+  }
+
+  // declare and assign a local variable for each parameter, time is stashed first
+  private void applyDecode(Listing listing, MethodDeclaration method) {
+    generator
+        .findTimeParameter(method)
+        .ifPresent(arg -> listing.eval("long {{$}} = source.getLong(){{;}}", arg.getName()));
+    for (MethodParameter parameter : method.getParameters()) {
+      if (isParameterTime(parameter)) {
+        continue;
+      }
+      Type type = parameter.getType();
+      listing.add(type).add(' ').add(parameter.getName()).add(" = ");
+      Stashlet stashlet = generator.resolve(parameter);
+      stashlet.spawn(listing, "source", type);
+      listing.add(';').newline();
+    }
+  }
+}
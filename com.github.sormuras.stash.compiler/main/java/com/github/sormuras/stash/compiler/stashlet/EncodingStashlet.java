@@ -0,0 +1,44 @@
+package com.github.sormuras.stash.compiler.stashlet;
+
+import com.github.sormuras.beethoven.Listing;
+import com.github.sormuras.beethoven.type.Type;
+import com.github.sormuras.stash.compiler.Stashlet;
+
+/** Call site: static routines chosen by an annotation, like {@code @N int} or {@code @Packed}. */
+public class EncodingStashlet implements Stashlet {
+
+  private final Type type;
+  private final Class<?> owner;
+  private final String suffix;
+
+  /**
+   * Create encoding stashlet.
+   *
+   * @param type type of the parameter, like {@code int} or {@code long[]}
+   * @param owner interface declaring the routines, like {@code Stashable.Buffer}
+   * @param suffix suffix of the routines, like {@code "IntN"} or {@code "PackedLongArray"}
+   */
+  public EncodingStashlet(Type type, Class<?> owner, String suffix) {
+    this.type = type;
+    this.owner = owner;
+    this.suffix = suffix;
+  }
+
+  @Override
+  public Type forType() {
+    return type;
+  }
+
+  @Override
+  public Listing stash(Listing listing, String buffer, String parameterName) {
+    listing.add(Type.type(owner));
+    listing.add(".stash").add(suffix).add('(').add(buffer).add(", ").add(parameterName);
+    return listing.add(')');
+  }
+
+  @Override
+  public Listing spawn(Listing listing, String buffer, Type parameterType) {
+    listing.add(Type.type(owner));
+    return listing.add(".spawn").add(suffix).add('(').add(buffer).add(')');
+  }
+}
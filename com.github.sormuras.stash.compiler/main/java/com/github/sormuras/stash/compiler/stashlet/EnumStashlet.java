@@ -1,9 +1,16 @@
 package com.github.sormuras.stash.compiler.stashlet;
 
 import com.github.sormuras.beethoven.Listing;
+import com.github.sormuras.beethoven.type.ArrayType;
 import com.github.sormuras.beethoven.type.Type;
+import com.github.sormuras.beethoven.unit.FieldDeclaration;
+import com.github.sormuras.beethoven.unit.NormalClassDeclaration;
+import com.github.sormuras.stash.compiler.Generator;
 import com.github.sormuras.stash.compiler.Stashlet;
 import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import javax.lang.model.element.Modifier;
 
 public class EnumStashlet implements Stashlet {
 
@@ -15,8 +22,23 @@ public class EnumStashlet implements Stashlet {
     return enumClass.getEnumConstants()[Byte.toUnsignedInt(source.get())];
   }
 
+  // names of the holder fields caching the constants, calling values() would clone them per spawn
+  private final Map<Type, String> values = new HashMap<>();
+  private String holder;
+
   public EnumStashlet() {}
 
+  @Override
+  public void init(Type type, Generator generator) {
+    NormalClassDeclaration declaration = generator.getValues();
+    String name = type.list().replaceAll("\\W", "_").toUpperCase() + "_VALUES";
+    FieldDeclaration field = declaration.declareField(ArrayType.array(type, 1), name);
+    field.setModifiers(Modifier.STATIC, Modifier.FINAL);
+    field.setInitializer(listing -> listing.add(type).add(".values()"));
+    this.holder = declaration.getName();
+    values.put(type, name);
+  }
+
   @Override
   public Listing stash(Listing listing, String buffer, String parameterName) {
     return listing.add(buffer).add(".put((byte) ").add(parameterName).add(".ordinal())");
@@ -24,8 +46,7 @@ public class EnumStashlet implements Stashlet {
 
   @Override
   public Listing spawn(Listing listing, String buffer, Type parameterType) {
-    listing.add(parameterType);
-    listing.add(".values()[");
+    listing.add(holder).add('.').add(values.get(parameterType)).add('[');
     listing.add(Type.type(Byte.class));
     listing.add(".toUnsignedInt(");
     listing.add(buffer);
@@ -0,0 +1,29 @@
+package com.github.sormuras.stash.compiler.stashlet;
+
+import com.github.sormuras.beethoven.Listing;
+import com.github.sormuras.beethoven.type.Type;
+import com.github.sormuras.stash.Stashable;
+import com.github.sormuras.stash.compiler.Stashlet;
+
+/** Varint length followed by UTF-8 encoded bytes, for strings and other char sequences. */
+public class StringStashlet implements Stashlet {
+
+  public StringStashlet() {}
+
+  @Override
+  public Type forType() {
+    return Type.type(CharSequence.class);
+  }
+
+  @Override
+  public Listing stash(Listing listing, String buffer, String parameterName) {
+    listing.add(Type.type(Stashable.Buffer.class));
+    return listing.add(".stashCharSequence(").add(buffer).add(", ").add(parameterName).add(')');
+  }
+
+  @Override
+  public Listing spawn(Listing listing, String buffer, Type parameterType) {
+    listing.add(Type.type(Stashable.Buffer.class));
+    return listing.add(".spawnString(").add(buffer).add(')');
+  }
+}
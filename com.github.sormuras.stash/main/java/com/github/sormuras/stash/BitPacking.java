@@ -0,0 +1,150 @@
+package com.github.sormuras.stash;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Frame-of-reference bit packing of int and long arrays.
+ *
+ * <p>Values are split into blocks of {@value #BLOCK}. Each block is written as its minimum, a
+ * ZigZag varint, followed by a single byte holding the bit width of the largest difference to the
+ * minimum and all differences packed at that width, least significant bits first. A block ends at
+ * a byte boundary. Blocks of equal values take only their minimum and a zero width.
+ */
+final class BitPacking {
+
+  /** Number of values sharing a minimum and a bit width. */
+  static final int BLOCK = 128;
+
+  static void stash(ByteBuffer target, int[] values) {
+    for (int from = 0; from < values.length; from += BLOCK) {
+      int to = Math.min(from + BLOCK, values.length);
+      int min = values[from];
+      for (int index = from + 1; index < to; index++) {
+        min = Math.min(min, values[index]);
+      }
+      long bits = 0;
+      for (int index = from; index < to; index++) {
+        bits |= (long) values[index] - min;
+      }
+      int width = Long.SIZE - Long.numberOfLeadingZeros(bits);
+      Stashable.Buffer.stashIntZ(target, min);
+      target.put((byte) width);
+      int pending = 0;
+      for (int index = from; index < to; index++) {
+        pending = write(target, pending, (long) values[index] - min, width);
+      }
+      flush(target, pending);
+    }
+  }
+
+  static void stash(ByteBuffer target, long[] values) {
+    for (int from = 0; from < values.length; from += BLOCK) {
+      int to = Math.min(from + BLOCK, values.length);
+      long min = values[from];
+      for (int index = from + 1; index < to; index++) {
+        min = Math.min(min, values[index]);
+      }
+      long bits = 0;
+      for (int index = from; index < to; index++) {
+        bits |= values[index] - min;
+      }
+      int width = Long.SIZE - Long.numberOfLeadingZeros(bits);
+      Stashable.Buffer.stashLongZ(target, min);
+      target.put((byte) width);
+      int pending = 0;
+      for (int index = from; index < to; index++) {
+        pending = write(target, pending, values[index] - min, width);
+      }
+      flush(target, pending);
+    }
+  }
+
+  static void spawn(ByteBuffer source, int[] values) {
+    for (int from = 0; from < values.length; from += BLOCK) {
+      int to = Math.min(from + BLOCK, values.length);
+      int min = Stashable.Buffer.spawnIntZ(source);
+      int width = source.get();
+      int offset = source.position();
+      if (bytes(to - from, width) > source.remaining()) {
+        throw new BufferUnderflowException();
+      }
+      for (int index = from; index < to; index++) {
+        values[index] = (int) (min + read(source, offset, (long) (index - from) * width, width));
+      }
+      source.position(offset + bytes(to - from, width));
+    }
+  }
+
+  static void spawn(ByteBuffer source, long[] values) {
+    for (int from = 0; from < values.length; from += BLOCK) {
+      int to = Math.min(from + BLOCK, values.length);
+      long min = Stashable.Buffer.spawnLongZ(source);
+      int width = source.get();
+      int offset = source.position();
+      if (bytes(to - from, width) > source.remaining()) {
+        throw new BufferUnderflowException();
+      }
+      for (int index = from; index < to; index++) {
+        values[index] = min + read(source, offset, (long) (index - from) * width, width);
+      }
+      source.position(offset + bytes(to - from, width));
+    }
+  }
+
+  /** {@return the minimum number of bytes the given number of values take} */
+  static long minimum(int length) {
+    return (length + BLOCK - 1L) / BLOCK * 2;
+  }
+
+  // number of bytes taken by the packed differences of a block
+  private static int bytes(int length, int width) {
+    return (length * width + Byte.SIZE - 1) / Byte.SIZE;
+  }
+
+  // low bits of a long, all of them for a width of 64
+  private static long mask(int width) {
+    return width == Long.SIZE ? -1L : (1L << width) - 1;
+  }
+
+  // append the low bits of the value to at most 7 pending bits, their count is kept in bits 8-11
+  private static int write(ByteBuffer target, int pending, long value, int width) {
+    long bits = pending & 0xFF;
+    int count = pending >>> Byte.SIZE;
+    int written = 0;
+    while (written < width) {
+      int take = Math.min(width - written, Long.SIZE - count);
+      bits |= (value >>> written & mask(take)) << count;
+      count += take;
+      written += take;
+      while (count >= Byte.SIZE) {
+        target.put((byte) bits);
+        bits >>>= Byte.SIZE;
+        count -= Byte.SIZE;
+      }
+    }
+    return count << Byte.SIZE | (int) bits;
+  }
+
+  private static void flush(ByteBuffer target, int pending) {
+    if (pending >>> Byte.SIZE > 0) {
+      target.put((byte) pending);
+    }
+  }
+
+  // read width bits starting at the given bit index, counted from the absolute offset
+  private static long read(ByteBuffer source, int offset, long bitIndex, int width) {
+    int index = offset + (int) (bitIndex >>> 3);
+    int shift = (int) (bitIndex & 7);
+    long value = 0;
+    int read = 0;
+    while (read < width) {
+      value |= (long) ((source.get(index++) & 0xFF) >>> shift) << read;
+      read += Byte.SIZE - shift;
+      shift = 0;
+    }
+    return value & mask(width);
+  }
+
+  private BitPacking() {}
+}
@@ -0,0 +1,175 @@
+package com.github.sormuras.stash;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed copy of a sealed segment.
+ *
+ * <p>The segment header is copied as-is. It's followed by blocks, each holding a run of complete
+ * frames, compressed by a {@link Deflater}. Every block starts with its uncompressed and compressed
+ * size as {@code int} values. Reading inflates one block at a time into a reused buffer.
+ */
+final class Deflated {
+
+  /** Uncompressed size of a block in bytes, unless a single frame is larger. */
+  static final int BLOCK = 1 << 16;
+
+  /**
+   * Compress a sealed segment into the given file and force it to the storage device.
+   *
+   * @param segment the sealed segment
+   * @param level the compression level
+   * @param target the file to write
+   */
+  static void write(ByteBuffer segment, int level, Path target) throws IOException {
+    Deflater deflater = new Deflater(level);
+    try (FileChannel channel = FileChannel.open(target, CREATE, TRUNCATE_EXISTING, WRITE)) {
+      write(channel, segment.duplicate().position(0).limit(Journal.HEADER));
+      ByteBuffer output = ByteBuffer.allocate(BLOCK);
+      long count = segment.getLong(0);
+      int start = Journal.HEADER;
+      int offset = start;
+      for (long index = 0; index < count; index++) {
+        int end = offset + Journal.FRAME + segment.getInt(offset + Integer.BYTES);
+        if (end - start > BLOCK && offset > start) {
+          output = deflate(deflater, segment, start, offset, output);
+          write(channel, output);
+          start = offset;
+        }
+        offset = end;
+      }
+      if (offset > start) {
+        write(channel, deflate(deflater, segment, start, offset, output));
+      }
+      channel.force(true);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  // compress the given region into a block, returns the flipped output buffer, possibly grown
+  private static ByteBuffer deflate(
+      Deflater deflater, ByteBuffer segment, int start, int end, ByteBuffer output) {
+    deflater.reset();
+    deflater.setInput(segment.duplicate().position(start).limit(end));
+    deflater.finish();
+    output.clear().position(Integer.BYTES + Integer.BYTES);
+    while (!deflater.finished()) {
+      if (!output.hasRemaining()) {
+        output = ByteBuffer.allocate(output.capacity() * 2).put(output.flip());
+      }
+      deflater.deflate(output);
+    }
+    int size = output.position() - Integer.BYTES - Integer.BYTES;
+    return output.putInt(0, end - start).putInt(Integer.BYTES, size).flip();
+  }
+
+  private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * Read all frames of a compressed segment, verifying it's complete.
+   *
+   * @param path the compressed segment
+   * @param limit sequence number to stop at
+   * @param visitor visits each frame, offsets refer to the uncompressed segment
+   * @return the number of frames read
+   */
+  static long read(Path path, long limit, Journal.FrameVisitor visitor) throws IOException {
+    ByteBuffer source;
+    try (FileChannel channel = FileChannel.open(path, READ)) {
+      source = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    long first = source.getLong(Long.BYTES);
+    long sequence = first;
+    ByteBuffer block = ByteBuffer.allocate(BLOCK).limit(0);
+    Inflater inflater = new Inflater();
+    try {
+      int base = Journal.HEADER;
+      source.position(Journal.HEADER);
+      while (source.hasRemaining() && sequence < limit) {
+        int raw = source.getInt();
+        int size = source.getInt();
+        if (block.capacity() < raw) {
+          block = ByteBuffer.allocate(raw);
+        }
+        block.clear().limit(raw);
+        inflater.reset();
+        inflater.setInput(source.slice().limit(size));
+        while (block.hasRemaining() && !inflater.finished()) {
+          if (inflater.inflate(block) == 0 && inflater.needsInput()) {
+            throw new IOException(path + " has a truncated block at " + source.position());
+          }
+        }
+        source.position(source.position() + size);
+        int offset = base;
+        Journal.FrameVisitor shifted =
+            (current, start, entry) -> visitor.visit(current, offset + start, entry);
+        sequence += Journal.read(block.flip(), 0, sequence, limit, shifted);
+        if (block.hasRemaining()) {
+          break; // refused by the visitor or a corrupt frame
+        }
+        base += raw;
+      }
+    } catch (DataFormatException e) {
+      throw new IOException(path + " is corrupt", e);
+    } finally {
+      inflater.end();
+    }
+    return Journal.complete(path, source.getLong(0), first, sequence, limit, block);
+  }
+
+  /**
+   * Restore the uncompressed segment from a compressed segment.
+   *
+   * @param path the compressed segment
+   * @param size minimum size of the uncompressed segment in bytes
+   * @param target the file to write
+   */
+  static void inflate(Path path, int size, Path target) throws IOException {
+    try (FileChannel channel = FileChannel.open(target, CREATE, TRUNCATE_EXISTING, WRITE)) {
+      ByteBuffer header;
+      try (FileChannel source = FileChannel.open(path, READ)) {
+        header = source.map(FileChannel.MapMode.READ_ONLY, 0, Journal.HEADER);
+      }
+      write(channel, header);
+      read(
+          path,
+          Long.MAX_VALUE,
+          (sequence, offset, entry) -> {
+            int start = entry.position() - Journal.FRAME;
+            ByteBuffer frame = entry.duplicate().position(start);
+            try {
+              channel.position(offset);
+              write(channel, frame);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+            return true;
+          });
+      if (channel.size() < size) {
+        channel.write(ByteBuffer.allocate(1), size - 1);
+      }
+      channel.force(true);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private Deflated() {}
+}
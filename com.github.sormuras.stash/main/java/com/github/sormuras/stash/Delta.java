@@ -0,0 +1,19 @@
+package com.github.sormuras.stash;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Int or long array annotation for series of close values, e.g. measurements.
+ *
+ * <p>Each element is stored as the ZigZag varint difference to its predecessor, which may be
+ * negative. Differences between -64 and 63 take a single byte.
+ *
+ * @see Stashable.Buffer.Compact#stashDeltaIntArray(java.nio.ByteBuffer, int[])
+ * @see Stashable.Buffer.Compact#stashDeltaLongArray(java.nio.ByteBuffer, long[])
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Delta {}
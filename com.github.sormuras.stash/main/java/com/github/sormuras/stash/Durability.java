@@ -0,0 +1,60 @@
+package com.github.sormuras.stash;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Policy describing when committed journal entries are forced to the storage device.
+ *
+ * <p>Usage: {@code Journal.Options.DEFAULT.withDurability(Durability.group(ofMillis(2), 1000))}
+ *
+ * @param mode the durability mode
+ * @param interval maximum time between two forces in {@link Mode#GROUP} mode
+ * @param maxBatch number of pending commits triggering a force in {@link Mode#GROUP} mode
+ * @see Journal#whenDurable(long)
+ */
+public record Durability(Mode mode, Duration interval, int maxBatch) {
+
+  /** Durability mode. */
+  public enum Mode {
+    /** Entries are forced on explicit request and when the journal is closed only. */
+    NONE,
+    /** Every commit forces the journal before the journaled call returns. */
+    EVERY_COMMIT,
+    /** A background flusher forces once for all commits of an interval or a batch. */
+    GROUP
+  }
+
+  /** Never force implicitly. */
+  public static final Durability NONE = new Durability(Mode.NONE, Duration.ZERO, 0);
+
+  /** Force on every commit. */
+  public static final Durability EVERY_COMMIT = new Durability(Mode.EVERY_COMMIT, Duration.ZERO, 1);
+
+  /**
+   * Create a group commit policy.
+   *
+   * @param interval maximum time a commit waits for being forced
+   * @param maxBatch number of pending commits that trigger a force before the interval elapsed
+   * @return a group commit policy
+   */
+  public static Durability group(Duration interval, int maxBatch) {
+    return new Durability(Mode.GROUP, interval, maxBatch);
+  }
+
+  /**
+   * Validate policy.
+   *
+   * @param mode the durability mode
+   * @param interval maximum time between two forces in {@link Mode#GROUP} mode
+   * @param maxBatch number of pending commits triggering a force in {@link Mode#GROUP} mode
+   */
+  public Durability {
+    Objects.requireNonNull(mode, "mode");
+    Objects.requireNonNull(interval, "interval");
+    if (mode == Mode.GROUP && (interval.isNegative() || interval.isZero() || maxBatch <= 0)) {
+      String message = "group commit needs positive interval and batch size: %s, %d";
+      throw new IllegalArgumentException(String.format(message, interval, maxBatch));
+    }
+  }
+}
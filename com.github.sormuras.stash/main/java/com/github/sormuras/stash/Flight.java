@@ -0,0 +1,22 @@
+package com.github.sormuras.stash;
+
+import jdk.jfr.EventType;
+
+/**
+ * Flight recorder event types.
+ *
+ * <p>Emitting an event starts with checking whether its type is enabled, so nothing is allocated
+ * or timed while no recording asks for it.
+ */
+final class Flight {
+
+  static final EventType APPEND = EventType.getEventType(StashAppend.class);
+  static final EventType COMMIT = EventType.getEventType(StashCommit.class);
+  static final EventType FLUSH = EventType.getEventType(StashFlush.class);
+  static final EventType REPLAY = EventType.getEventType(StashReplay.class);
+
+  /** Category of all stash events. */
+  static final String CATEGORY = "Stash";
+
+  private Flight() {}
+}
@@ -0,0 +1,126 @@
+package com.github.sormuras.stash;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Sparse index of a single segment.
+ *
+ * <p>Each point maps the sequence number of an entry to its byte offset within the segment and to
+ * the greatest time value of all entries up to and including it. Thus the first entry at or after
+ * a given time follows the last point with a smaller time value.
+ */
+final class Index {
+
+  /** Size of a point in bytes: sequence number, offset and time. */
+  static final int POINT = 3 * Long.BYTES;
+
+  /**
+   * Read an index file.
+   *
+   * @param path the index file
+   * @return the index or {@code null} if the file doesn't exist
+   */
+  static Index read(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return null;
+    }
+    ByteBuffer source = ByteBuffer.wrap(Files.readAllBytes(path));
+    Index index = new Index();
+    while (source.remaining() >= POINT) {
+      index.add(source.getLong(), source.getLong(), source.getLong());
+    }
+    return index;
+  }
+
+  private long[] points = new long[3 * 16];
+  private int size;
+
+  void add(long sequence, long offset, long time) {
+    if (3 * size == points.length) {
+      points = Arrays.copyOf(points, points.length * 2);
+    }
+    points[3 * size] = sequence;
+    points[3 * size + 1] = offset;
+    points[3 * size + 2] = time;
+    size++;
+  }
+
+  /** Remove all points at or after the given sequence number. */
+  void truncate(long limit) {
+    size = floor(limit - 1) + 1;
+  }
+
+  int size() {
+    return size;
+  }
+
+  long sequence(int point) {
+    return points[3 * point];
+  }
+
+  long offset(int point) {
+    return points[3 * point + 1];
+  }
+
+  long time(int point) {
+    return points[3 * point + 2];
+  }
+
+  /** {@return the last point at or before the given sequence number, or -1} */
+  int floor(long sequence) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (sequence(middle) <= sequence) {
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return high;
+  }
+
+  /** {@return the last point with a time value before the given time, or -1} */
+  int before(long time) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (time(middle) < time) {
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return high;
+  }
+
+  /** Write all points to the given channel, starting at its current position. */
+  void write(FileChannel channel, int from) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate((size - from) * POINT);
+    for (int point = from; point < size; point++) {
+      buffer.putLong(sequence(point)).putLong(offset(point)).putLong(time(point));
+    }
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /** Write all points to the given file, replacing its content. */
+  void write(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, CREATE, TRUNCATE_EXISTING, WRITE)) {
+      write(channel, 0);
+    }
+  }
+}
@@ -0,0 +1,1348 @@
+package com.github.sormuras.stash;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Constructor;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Sequence of entries backing a generated stash, stored in a caller-supplied buffer or in
+ * memory-mapped segment files.
+ *
+ * <p>Every segment starts with a header holding the number of entries it contains and the
+ * sequence number of its first entry, both as {@code long} values. The entry count is written
+ * once, when the segment is sealed. A journal opened on a directory rolls over to a new segment
+ * file when the current one can't hold the next entry, thus every single mapping stays within the
+ * {@code int} addressing of {@link ByteBuffer}.
+ *
+ * <p>Every entry is preceded by a frame holding a CRC32C checksum, the length of the entry and its
+ * sequence number. The checksum covers length, sequence number and entry bytes. A commit only
+ * writes its own frame, and recovery reads frames until the first torn, corrupt or out of sequence
+ * one, no matter whether the segment was written via a mapping or a caller-supplied buffer.
+ *
+ * <p>If the prevalent system implements {@link Stashable}, a snapshot of its state can be written
+ * next to the segment files. Taking a snapshot rolls over to a new segment first, so a restored
+ * system only replays the segments following the newest snapshot. Segments and snapshots
+ * preceding the newest snapshot may be truncated or archived.
+ *
+ * <p>Committed entries are forced to the storage device as described by the {@link Durability}
+ * policy of the journal's options. Callers may wait for their entries to become durable via
+ * {@link #whenDurable(long)} without forcing the journal themselves. No monitor is entered on the
+ * journal path, so blocking in it doesn't pin the carrier of a virtual thread.
+ *
+ * <p>If the journal's options specify a compression level, sealed segments are compressed by a
+ * background thread. The compressed copy replaces the segment file once it's forced to the storage
+ * device. Compressed segments are replayed and scanned block by block.
+ *
+ * <p>Every segment file is accompanied by a sparse index file, which maps every n-th sequence
+ * number to the offset of its entry and to the greatest time value appended so far. The index
+ * lets {@link #scan(long, Consumer)} and {@link #seek(long)} jump close to an entry
+ * instead of decoding the journal from its start. Index files are hints: they aren't forced, a
+ * missing one is rebuilt while its segment is replayed and points of uncommitted entries are
+ * ignored.
+ *
+ * <p>A {@link Recovery} in the journal's options stops replaying at a sequence number or time
+ * value, discarding all later entries from the journal or from a forked copy of it.
+ *
+ * <p>Usage: {@code Demo demo = DemoStash.open(new Demo.Impl(), Path.of("demo"))}
+ */
+public final class Journal implements AutoCloseable {
+
+  /** Size of the segment header in bytes: entry count and first sequence number. */
+  public static final int HEADER = Long.BYTES + Long.BYTES;
+
+  /** Size of the frame preceding every entry in bytes: checksum, length and sequence number. */
+  public static final int FRAME = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+  /** File name extension of segment files. */
+  public static final String SEGMENT_EXTENSION = ".stash";
+
+  /** File name extension of snapshot files. */
+  public static final String SNAPSHOT_EXTENSION = ".snapshot";
+
+  /** File name extension of compressed segment files. */
+  public static final String COMPRESSED_EXTENSION = ".deflate";
+
+  /** File name extension of sparse index files. */
+  public static final String INDEX_EXTENSION = ".index";
+
+  /** Journal configuration. */
+  public record Options(
+      int segmentSize,
+      int entrySize,
+      Durability durability,
+      int indexInterval,
+      int compression,
+      Recovery recovery) {
+
+    /** Default options: 64 MiB segments holding entries of at most 1 MiB, no implicit force. */
+    public static final Options DEFAULT = new Options(64 << 20, 1 << 20);
+
+    /** Default number of entries between two index points. */
+    public static final int DEFAULT_INDEX_INTERVAL = 1024;
+
+    /**
+     * Create options without implicit forcing.
+     *
+     * @param segmentSize size of a segment file in bytes, including its header
+     * @param entrySize maximum size of a single entry in bytes
+     */
+    public Options(int segmentSize, int entrySize) {
+      this(segmentSize, entrySize, Durability.NONE);
+    }
+
+    /**
+     * Create options using the default index interval, without compression and replaying all
+     * committed entries.
+     *
+     * @param segmentSize size of a segment file in bytes, including its header
+     * @param entrySize maximum size of a single entry in bytes
+     * @param durability policy describing when committed entries are forced
+     */
+    public Options(int segmentSize, int entrySize, Durability durability) {
+      this(
+          segmentSize,
+          entrySize,
+          durability,
+          DEFAULT_INDEX_INTERVAL,
+          Deflater.NO_COMPRESSION,
+          Recovery.NONE);
+    }
+
+    /**
+     * Validate options.
+     *
+     * @param segmentSize size of a segment file in bytes, including its header
+     * @param entrySize maximum size of a single entry in bytes
+     * @param durability policy describing when committed entries are forced
+     * @param indexInterval number of entries between two index points
+     * @param compression {@link Deflater} level of sealed segments, {@code 0} keeps them as-is
+     * @param recovery where replaying stops, {@link Recovery#NONE} replays all entries
+     */
+    public Options {
+      Objects.requireNonNull(durability, "durability");
+      Objects.requireNonNull(recovery, "recovery");
+      if (entrySize <= 0) {
+        throw new IllegalArgumentException("entry size must be positive: " + entrySize);
+      }
+      if (indexInterval <= 0) {
+        throw new IllegalArgumentException("index interval must be positive: " + indexInterval);
+      }
+      if (compression < Deflater.NO_COMPRESSION || compression > Deflater.BEST_COMPRESSION) {
+        throw new IllegalArgumentException("compression level out of range: " + compression);
+      }
+      if (segmentSize - HEADER - FRAME < entrySize) {
+        String message = "segment size %d can't hold an entry of %d bytes";
+        throw new IllegalArgumentException(format(message, segmentSize, entrySize));
+      }
+    }
+
+    /** {@return new options with the given segment size} */
+    public Options withSegmentSize(int segmentSize) {
+      return new Options(segmentSize, entrySize, durability, indexInterval, compression, recovery);
+    }
+
+    /** {@return new options with the given maximum entry size} */
+    public Options withEntrySize(int entrySize) {
+      return new Options(segmentSize, entrySize, durability, indexInterval, compression, recovery);
+    }
+
+    /** {@return new options with the given durability policy} */
+    public Options withDurability(Durability durability) {
+      return new Options(segmentSize, entrySize, durability, indexInterval, compression, recovery);
+    }
+
+    /** {@return new options with the given number of entries between two index points} */
+    public Options withIndexInterval(int indexInterval) {
+      return new Options(segmentSize, entrySize, durability, indexInterval, compression, recovery);
+    }
+
+    /** {@return new options with the given compression level of sealed segments} */
+    public Options withCompression(int compression) {
+      return new Options(segmentSize, entrySize, durability, indexInterval, compression, recovery);
+    }
+
+    /** {@return new options with the given point-in-time recovery} */
+    public Options withRecovery(Recovery recovery) {
+      return new Options(segmentSize, entrySize, durability, indexInterval, compression, recovery);
+    }
+  }
+
+  /**
+   * Create a journal backed by a single segment: the given buffer.
+   *
+   * <p>The generated {@code XStash(X, ByteBuffer)} constructor delegates to this method. The
+   * buffer holds the segment format described above: a {@link #HEADER} at its start and a {@link
+   * #FRAME} before every entry. Buffers written in the former raw encoding, a method hash directly
+   * followed by the arguments, can't be replayed: replaying them fails with an {@link
+   * IllegalStateException} if their header doesn't start at sequence zero, else replaying stops
+   * at the first frame that doesn't verify and zeroes all following bytes. Pass a zeroed buffer
+   * to start a new journal.
+   *
+   * @param buffer the buffer to read from and write to
+   * @return a journal wrapping the buffer
+   */
+  public static Journal wrap(ByteBuffer buffer) {
+    if (buffer.capacity() <= HEADER + FRAME) {
+      throw new IllegalArgumentException("buffer capacity too small: " + buffer.capacity());
+    }
+    int entrySize = buffer.capacity() - HEADER - FRAME;
+    return new Journal(null, new Options(buffer.capacity(), entrySize), List.of(), buffer);
+  }
+
+  /**
+   * Open or create a segmented journal in the given directory using default options.
+   *
+   * @param directory the directory containing the segment files
+   * @return a journal mapping the last segment file
+   * @throws IOException if the directory or a segment file can't be created or mapped
+   * @see #open(Path, Options)
+   */
+  public static Journal open(Path directory) throws IOException {
+    return open(directory, Options.DEFAULT);
+  }
+
+  /**
+   * Open or create a segmented journal in the given directory.
+   *
+   * <p>If the options describe a {@link Recovery} with a fork directory, all files of the journal
+   * are copied to that directory first and the copy is opened instead. Compressed segments and
+   * snapshots are linked rather than copied, if the file system supports it, as they are never
+   * written in place.
+   *
+   * @param directory the directory containing the segment files
+   * @param options the journal options
+   * @return a journal mapping the last segment file
+   * @throws IOException if the directory or a segment file can't be created or mapped, or if the
+   *     fork directory already contains a journal
+   */
+  public static Journal open(Path directory, Options options) throws IOException {
+    Recovery recovery = options.recovery();
+    if (recovery.fork() != null) {
+      fork(directory, recovery.fork());
+      return open(recovery.fork(), options.withRecovery(recovery.inPlace()));
+    }
+    Files.createDirectories(directory);
+    List<Path> segments = list(directory, SEGMENT_EXTENSION);
+    for (Path compressed : list(directory, COMPRESSED_EXTENSION)) {
+      Path segment = path(directory, sequence(compressed), SEGMENT_EXTENSION);
+      if (segments.remove(segment)) {
+        Files.delete(segment); // compressing was interrupted after the compressed copy was moved
+      }
+      segments.add(compressed);
+    }
+    segments.sort(Comparator.comparing(Path::getFileName));
+    if (segments.isEmpty()) {
+      segments.add(createSegment(directory, 0, options.segmentSize()));
+    }
+    Path last = segments.remove(segments.size() - 1);
+    MappedByteBuffer segment = map(last, FileChannel.MapMode.READ_WRITE);
+    Journal journal = new Journal(directory, options, segments, segment);
+    journal.load();
+    return journal;
+  }
+
+  // copy all journal files, linking those that are never written in place
+  private static void fork(Path directory, Path fork) throws IOException {
+    Files.createDirectories(fork);
+    if (!list(fork, SEGMENT_EXTENSION).isEmpty() || !list(fork, COMPRESSED_EXTENSION).isEmpty()) {
+      throw new FileAlreadyExistsException(fork.toString(), null, "contains a journal");
+    }
+    for (Path path : list(directory, "")) {
+      String name = path.getFileName().toString();
+      Path target = fork.resolve(path.getFileName());
+      if (name.endsWith(SEGMENT_EXTENSION) || name.endsWith(INDEX_EXTENSION)) {
+        Files.copy(path, target);
+      } else if (name.endsWith(COMPRESSED_EXTENSION) || name.endsWith(SNAPSHOT_EXTENSION)) {
+        try {
+          Files.createLink(target, path);
+        } catch (IOException | UnsupportedOperationException e) {
+          Files.copy(path, target);
+        }
+      }
+    }
+  }
+
+  private static List<Path> list(Path directory, String extension) throws IOException {
+    try (Stream<Path> stream = Files.list(directory)) {
+      return stream
+          .filter(path -> path.getFileName().toString().endsWith(extension))
+          .sorted()
+          .collect(Collectors.toCollection(ArrayList::new));
+    }
+  }
+
+  private static Path path(Path directory, long sequence, String extension) {
+    return directory.resolve(format("%019d%s", sequence, extension));
+  }
+
+  private static Path index(Path segment) {
+    return path(segment.getParent(), sequence(segment), INDEX_EXTENSION);
+  }
+
+  private static Path compressed(Path segment) {
+    return path(segment.getParent(), sequence(segment), COMPRESSED_EXTENSION);
+  }
+
+  private static boolean isCompressed(Path segment) {
+    return segment.getFileName().toString().endsWith(COMPRESSED_EXTENSION);
+  }
+
+  private static long sequence(Path path) {
+    String name = path.getFileName().toString();
+    return Long.parseLong(name.substring(0, name.indexOf('.')));
+  }
+
+  private static Path createSegment(Path directory, long first, int size) throws IOException {
+    Path path = path(directory, first, SEGMENT_EXTENSION);
+    try (FileChannel channel = FileChannel.open(path, CREATE_NEW, READ, WRITE)) {
+      MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      segment.putLong(0, 0).putLong(Long.BYTES, first);
+    }
+    return path;
+  }
+
+  private static MappedByteBuffer map(Path path, FileChannel.MapMode mode) throws IOException {
+    var options = mode == FileChannel.MapMode.READ_WRITE ? Set.of(READ, WRITE) : Set.of(READ);
+    try (FileChannel channel = FileChannel.open(path, options)) {
+      long size = channel.size();
+      if (size <= HEADER || size > Integer.MAX_VALUE) {
+        throw new IOException(format("%s has unsupported size: %d", path, size));
+      }
+      // the mapping stays valid after the channel is closed
+      return channel.map(mode, 0, size);
+    }
+  }
+
+  private record Waiter(long sequence, CompletableFuture<Long> future) {}
+
+  private static final Path STOP = Path.of("");
+
+  private final Path directory;
+  private final Options options;
+  private final List<Path> sealed;
+  private final List<Index> indexes;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final CRC32C crc = new CRC32C();
+  private final AtomicLong committed = new AtomicLong();
+  private final AtomicLong written = new AtomicLong();
+  private final PriorityQueue<Waiter> waiters =
+      new PriorityQueue<>(Comparator.comparingLong(Waiter::sequence));
+  private final BlockingQueue<Path> compressions = new LinkedBlockingQueue<>();
+  private ByteBuffer segment;
+  private ByteBuffer window;
+  private long segmentCount;
+  private long counter;
+  private volatile long snapshot;
+  private long flushed;
+  private long time = Long.MIN_VALUE;
+  private Index index = new Index();
+  private int cut = -1;
+  private FileChannel indexChannel;
+  private boolean replayed;
+  private long replayStart;
+  private volatile long replayNanos;
+  private volatile ObjectName monitor;
+  private Thread flusher;
+  private Thread compressor;
+  private volatile long durable;
+  private volatile boolean closed;
+
+  private Journal(Path directory, Options options, List<Path> sealed, ByteBuffer segment) {
+    this.directory = directory;
+    this.options = options;
+    this.sealed = sealed;
+    this.indexes = new ArrayList<>(Collections.nCopies(sealed.size(), (Index) null));
+    this.segment = segment;
+  }
+
+  // read the index files, missing ones are rebuilt while replaying their segments
+  private void load() throws IOException {
+    for (int position = 0; position < sealed.size(); position++) {
+      indexes.set(position, Index.read(index(sealed.get(position))));
+    }
+    index = Index.read(path(directory, segment.getLong(Long.BYTES), INDEX_EXTENSION));
+  }
+
+  /** {@return the options this journal was opened with} */
+  public Options options() {
+    return options;
+  }
+
+  /** {@return the number of committed entries} */
+  public long counter() {
+    return counter;
+  }
+
+  /** {@return the number of entries forced to the storage device} */
+  public long durable() {
+    return durable;
+  }
+
+  /** {@return the journal directory or {@code null} for a wrapped buffer} */
+  Path directory() {
+    return directory;
+  }
+
+  /** {@return the number of committed entries, safe to call from any thread} */
+  long committed() {
+    return committed.get();
+  }
+
+  /** {@return the number of bytes written to the current segment, may be stale} */
+  int position() {
+    return Math.max(HEADER, segment.position());
+  }
+
+  /** {@return the capacity of the current segment} */
+  int capacity() {
+    return segment.capacity();
+  }
+
+  /** {@return nanoseconds spent restoring and replaying} */
+  long replayNanos() {
+    return replayNanos;
+  }
+
+  void monitored(ObjectName name) {
+    this.monitor = name;
+  }
+
+  /** {@return sequence number covered by the newest restored or written snapshot, or 0} */
+  public long lastSnapshot() {
+    return snapshot;
+  }
+
+  /** {@return paths of all sealed segment files, compressed or not, empty for a wrapped buffer} */
+  public List<Path> sealed() {
+    lock.lock();
+    try {
+      return List.copyOf(sealed);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Restore the prevalent system from the newest snapshot, if there's one.
+   *
+   * <p>Must be called before {@link #replay(Consumer)}, which then skips all entries covered by
+   * the snapshot. The system is spawned by invoking the constructor of the initial system's class
+   * that takes a {@link ByteBuffer} as its single parameter.
+   *
+   * <p>Snapshots covering entries discarded by the {@link Recovery} of this journal's options are
+   * ignored. If recovery is bounded by a time value, the sparse index tells which snapshot covers
+   * earlier entries only.
+   *
+   * @param initial the system to use if there's no snapshot or if it isn't {@link Stashable}
+   * @param <T> type of the system
+   * @return the restored system or the initial system
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T restore(T initial) {
+    if (replayed) {
+      throw new IllegalStateException("already replayed");
+    }
+    replayStart = System.nanoTime();
+    if (directory == null || !(initial instanceof Stashable)) {
+      return initial;
+    }
+    try {
+      long bound = bound();
+      Path newest = null;
+      for (Path path : list(directory, SNAPSHOT_EXTENSION)) {
+        if (sequence(path) <= bound) {
+          newest = path;
+        }
+      }
+      if (newest == null) {
+        return initial;
+      }
+      ByteBuffer source;
+      try (FileChannel channel = FileChannel.open(newest, READ)) {
+        source = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+      long sequence = source.getLong();
+      Constructor<?> constructor = initial.getClass().getDeclaredConstructor(ByteBuffer.class);
+      constructor.trySetAccessible();
+      T restored = (T) constructor.newInstance(source);
+      this.snapshot = sequence;
+      return restored;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Restoring " + initial.getClass() + " failed", e);
+    }
+  }
+
+  // all entries preceding the returned sequence number are replayed
+  private long bound() {
+    Recovery recovery = options.recovery();
+    if (recovery.time() == Long.MAX_VALUE) {
+      return recovery.sequence();
+    }
+    return Math.min(recovery.sequence(), seek(recovery.time() + 1));
+  }
+
+  /**
+   * Replay all committed entries of all segments in order, skipping segments covered by a
+   * restored snapshot.
+   *
+   * @param spawner reads an entry from the passed buffer, which is limited to the entry's bytes
+   * @return the number of committed entries
+   * @see #replay(Consumer, ToLongFunction)
+   */
+  public long replay(Consumer<ByteBuffer> spawner) {
+    return replay(spawner, entry -> Long.MIN_VALUE);
+  }
+
+  /**
+   * Replay all committed entries of all segments in order, skipping segments covered by a
+   * restored snapshot, and rebuild missing index files of replayed segments.
+   *
+   * <p>Replaying the last segment stops at the first torn or corrupt frame. All bytes following
+   * the last valid frame are zeroed, so they can't pass as frames of entries appended later on.
+   *
+   * <p>Replaying stops early at the first entry discarded by the {@link Recovery} of this
+   * journal's options. That entry and all following ones are deleted: the segment holding it
+   * becomes the last segment, all later segments and snapshots are deleted. Later segments aren't
+   * read at all.
+   *
+   * @param spawner reads an entry from the passed buffer, which is limited to the entry's bytes
+   * @param timer returns the time value of the entry at the buffer's position without consuming
+   *     it, or {@link Long#MIN_VALUE} if the entry has no time value
+   * @return the number of committed entries
+   * @throws IllegalStateException if a sealed segment is incomplete or out of sequence
+   */
+  public long replay(Consumer<ByteBuffer> spawner, ToLongFunction<ByteBuffer> timer) {
+    if (replayed) {
+      throw new IllegalStateException("already replayed");
+    }
+    if (replayStart == 0) {
+      replayStart = System.nanoTime();
+    }
+    counter = snapshot;
+    try {
+      for (int position = 0; position < sealed.size(); position++) {
+        Path path = sealed.get(position);
+        if (covered(position)) {
+          continue;
+        }
+        expect(sequence(path));
+        Index rebuilt = indexes.get(position) == null ? new Index() : null;
+        StashReplay event = StashReplay.start();
+        long count = read(path, Long.MAX_VALUE, replayer(counter, spawner, timer, rebuilt));
+        StashReplay.finish(event, path.getFileName().toString(), counter, count);
+        counter += count;
+        if (rebuilt != null) {
+          rebuilt.write(index(path));
+          indexes.set(position, rebuilt);
+        }
+        if (cut >= 0) {
+          reopen(position);
+          break;
+        }
+      }
+      if (cut < 0) {
+        long first = segment.getLong(Long.BYTES);
+        expect(first);
+        Index rebuilt = index == null ? new Index() : null;
+        if (rebuilt != null) {
+          index = rebuilt;
+        }
+        FrameVisitor replayer = replayer(first, spawner, timer, rebuilt);
+        StashReplay event = StashReplay.start();
+        segmentCount = read(segment, HEADER, first, Long.MAX_VALUE, replayer);
+        String name = directory == null ? "" : format("%019d%s", first, SEGMENT_EXTENSION);
+        StashReplay.finish(event, name, first, segmentCount);
+        counter += segmentCount;
+      }
+      wipe(segment.limit(segment.capacity()));
+      window = segment.duplicate();
+      index.truncate(counter); // drops points of uncommitted or discarded entries
+      if (directory != null) {
+        Path path = path(directory, segment.getLong(Long.BYTES), INDEX_EXTENSION);
+        index.write(path);
+        indexChannel = FileChannel.open(path, WRITE, APPEND);
+      }
+      if (cut >= 0) {
+        discard();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    committed.set(counter);
+    durable = counter;
+    replayed = true;
+    replayNanos = System.nanoTime() - replayStart;
+    if (options.durability().mode() == Durability.Mode.GROUP) {
+      flusher = new Thread(this::flush, "stash-flusher");
+      flusher.setDaemon(true);
+      flusher.start();
+    }
+    if (directory != null && options.compression() != Deflater.NO_COMPRESSION) {
+      sealed.stream().filter(path -> !isCompressed(path)).forEach(compressions::add);
+      compressor = new Thread(this::compress, "stash-compressor");
+      compressor.setDaemon(true);
+      compressor.start();
+    }
+    return counter;
+  }
+
+  // make the sealed segment holding the cut the last segment, deleting all following segments
+  private void reopen(int position) throws IOException {
+    Path last = path(directory, segment.getLong(Long.BYTES), SEGMENT_EXTENSION);
+    Files.delete(last);
+    Files.deleteIfExists(index(last));
+    for (int later = sealed.size() - 1; later > position; later--) {
+      Path path = sealed.remove(later);
+      indexes.remove(later);
+      Files.delete(path);
+      Files.deleteIfExists(index(path));
+    }
+    Path path = sealed.remove(position);
+    index = indexes.remove(position);
+    Path raw = path(directory, sequence(path), SEGMENT_EXTENSION);
+    if (isCompressed(path)) {
+      Path temporary = raw.resolveSibling(raw.getFileName() + ".tmp");
+      Deflated.inflate(path, options.segmentSize(), temporary);
+      Files.move(temporary, raw, ATOMIC_MOVE);
+      Files.delete(path);
+    }
+    segment = map(raw, FileChannel.MapMode.READ_WRITE);
+    segment.putLong(0, 0).position(cut);
+    segmentCount = counter - sequence(raw);
+  }
+
+  // force the cut segment and delete snapshots covering discarded entries
+  private void discard() throws IOException {
+    if (segment instanceof MappedByteBuffer mapped) {
+      mapped.force();
+    }
+    for (Path path : list(directory, SNAPSHOT_EXTENSION)) {
+      if (sequence(path) > counter) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  private void expect(long first) {
+    if (first != counter) {
+      throw new IllegalStateException(format("expected sequence %d, but got %d", counter, first));
+    }
+  }
+
+  private FrameVisitor replayer(
+      long first, Consumer<ByteBuffer> spawner, ToLongFunction<ByteBuffer> timer, Index rebuild) {
+    Recovery recovery = options.recovery();
+    return (sequence, offset, entry) -> {
+      long current = timer.applyAsLong(entry);
+      if (recovery.stops(sequence, current)) {
+        cut = offset;
+        return false;
+      }
+      time = Math.max(time, current);
+      boolean point = sequence == first || sequence % options.indexInterval() == 0;
+      if (rebuild != null && point) {
+        rebuild.add(sequence, offset, time);
+      }
+      spawner.accept(entry);
+      return true;
+    };
+  }
+
+  /** Visits a frame, returning {@code false} stops reading in front of it. */
+  @FunctionalInterface
+  interface FrameVisitor {
+    boolean visit(long sequence, int offset, ByteBuffer entry);
+  }
+
+  // visit valid frames, stop at the first torn, corrupt, out of sequence or refused frame
+  static long read(
+      ByteBuffer buffer, int offset, long first, long limit, FrameVisitor visitor) {
+    CRC32C crc = new CRC32C();
+    int end = buffer.limit();
+    buffer.position(offset);
+    long sequence = first;
+    for (; sequence < limit; sequence++) {
+      int start = buffer.position();
+      int length = frame(buffer, sequence, crc);
+      if (length < 0) {
+        break;
+      }
+      buffer.limit(start + FRAME + length).position(start + FRAME);
+      boolean accepted = visitor.visit(sequence, start, buffer);
+      buffer.limit(end).position(accepted ? start + FRAME + length : start);
+      if (!accepted) {
+        break;
+      }
+    }
+    return sequence - first;
+  }
+
+  private static long read(Path path, long limit, FrameVisitor visitor) throws IOException {
+    return read(path, HEADER, sequence(path), limit, visitor);
+  }
+
+  // read a sealed segment from the given frame on, it may have been compressed in the meantime
+  private static long read(Path path, int offset, long point, long limit, FrameVisitor visitor)
+      throws IOException {
+    long first = sequence(path);
+    if (!isCompressed(path)) {
+      try {
+        ByteBuffer buffer = map(path, FileChannel.MapMode.READ_ONLY);
+        long next = point + read(buffer, offset, point, limit, visitor);
+        return complete(path, buffer.getLong(0), first, next, limit, buffer) - (point - first);
+      } catch (NoSuchFileException e) {
+        path = compressed(path);
+      }
+    }
+    // compressed segments are read from their start
+    return Deflated.read(path, limit, visitor) - (point - first);
+  }
+
+  // a sealed segment must hold as many frames as its header says, unless reading was limited or
+  // refused at the frame the buffer is positioned at
+  static long complete(Path path, long expected, long first, long next, long limit, ByteBuffer at) {
+    if (next - first != expected && next < limit && frame(at, next, new CRC32C()) < 0) {
+      throw new IllegalStateException(path + " is incomplete");
+    }
+    return next - first;
+  }
+
+  // length of the entry framed at the buffer's position or -1, the position is left unchanged
+  private static int frame(ByteBuffer buffer, long sequence, CRC32C crc) {
+    int start = buffer.position();
+    int end = buffer.limit();
+    if (end - start < FRAME) {
+      return -1;
+    }
+    int length = buffer.getInt(start + Integer.BYTES);
+    if (length < 0 || length > end - start - FRAME) {
+      return -1;
+    }
+    if (buffer.getLong(start + Integer.BYTES + Integer.BYTES) != sequence) {
+      return -1;
+    }
+    crc.reset();
+    crc.update(buffer.limit(start + FRAME + length).position(start + Integer.BYTES));
+    buffer.limit(end).position(start);
+    return (int) crc.getValue() == buffer.getInt(start) ? length : -1;
+  }
+
+  // zero all bytes from the buffer's position up to the last non-zero byte
+  private static void wipe(ByteBuffer buffer) {
+    int start = buffer.position();
+    int end = start;
+    int offset = start;
+    for (; offset <= buffer.capacity() - Long.BYTES; offset += Long.BYTES) {
+      if (buffer.getLong(offset) != 0) {
+        end = offset + Long.BYTES;
+      }
+    }
+    for (; offset < buffer.capacity(); offset++) {
+      if (buffer.get(offset) != 0) {
+        end = offset + 1;
+      }
+    }
+    for (offset = start; offset < end; offset++) {
+      buffer.put(offset, (byte) 0);
+    }
+  }
+
+  /**
+   * Read all entries of all segments in order without replaying them.
+   *
+   * <p>Scanning doesn't change the state of this journal and includes entries covered by a
+   * snapshot. Entries appended while scanning may be missed.
+   *
+   * @param reader reads an entry from the passed buffer, which is limited to the entry's bytes
+   * @return the number of entries read
+   */
+  public long scan(Consumer<ByteBuffer> reader) {
+    List<Path> paths;
+    ByteBuffer hot;
+    long limit;
+    lock.lock();
+    try {
+      paths = List.copyOf(sealed);
+      hot = segment.duplicate();
+      limit = replayed ? committed.get() : Long.MAX_VALUE;
+    } finally {
+      lock.unlock();
+    }
+    FrameVisitor visitor =
+        (sequence, offset, entry) -> {
+          reader.accept(entry);
+          return true;
+        };
+    long count = 0;
+    try {
+      for (Path path : paths) {
+        count += read(path, limit, visitor);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return count + read(hot, HEADER, hot.getLong(Long.BYTES), limit, visitor);
+  }
+
+  /**
+   * Read all entries starting at the given sequence number without replaying them.
+   *
+   * <p>Reading starts at the nearest index point preceding the given sequence number, the frames
+   * between that point and the sequence number are skipped without decoding their entries.
+   *
+   * @param sequence sequence number of the first entry to read
+   * @param reader reads an entry from the passed buffer, which is limited to the entry's bytes
+   * @return the number of entries read
+   * @throws IllegalArgumentException if the entry was truncated or archived
+   */
+  public long scan(long sequence, Consumer<ByteBuffer> reader) {
+    List<Path> paths;
+    ByteBuffer hot;
+    long limit;
+    long point;
+    long offset;
+    lock.lock();
+    try {
+      int position = sealed.size();
+      hot = segment.duplicate();
+      limit = replayed ? committed.get() : Long.MAX_VALUE;
+      long first = hot.getLong(Long.BYTES);
+      while (first > sequence && position > 0) {
+        first = sequence(sealed.get(--position));
+      }
+      if (first > sequence) {
+        throw new IllegalArgumentException(format("entry %d isn't available", sequence));
+      }
+      paths = List.copyOf(sealed.subList(position, sealed.size()));
+      Index points = position == sealed.size() ? index : indexes.get(position);
+      int floor = points == null ? -1 : points.floor(sequence);
+      point = floor < 0 ? first : points.sequence(floor);
+      offset = floor < 0 ? HEADER : points.offset(floor);
+    } finally {
+      lock.unlock();
+    }
+    FrameVisitor visitor =
+        (current, start, entry) -> {
+          reader.accept(entry);
+          return true;
+        };
+    try {
+      FrameVisitor skipping =
+          (current, start, entry) -> {
+            if (current >= sequence) {
+              reader.accept(entry);
+            }
+            return true;
+          };
+      long count =
+          paths.isEmpty()
+              ? read(hot, (int) offset, point, limit, skipping)
+              : read(paths.get(0), (int) offset, point, limit, skipping);
+      count -= sequence - point;
+      count = Math.max(0, count);
+      for (int index = 1; index < paths.size(); index++) {
+        count += read(paths.get(index), limit, visitor);
+      }
+      if (paths.isEmpty()) {
+        return count;
+      }
+      return count + read(hot, HEADER, hot.getLong(Long.BYTES), limit, visitor);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Find the sequence number to start reading from to visit all entries appended at or after the
+   * given time.
+   *
+   * <p>All entries preceding the returned sequence number have a time value before the given
+   * time, provided that time values were appended in non-decreasing order.
+   *
+   * @param time the time value to look for
+   * @return sequence number of an index point or of the first available entry
+   */
+  public long seek(long time) {
+    lock.lock();
+    try {
+      for (int position = sealed.size(); position >= 0; position--) {
+        Index points = position == sealed.size() ? index : indexes.get(position);
+        int before = points == null ? -1 : points.before(time);
+        if (before >= 0) {
+          return points.sequence(before);
+        }
+      }
+      return sealed.isEmpty() ? segment.getLong(Long.BYTES) : sequence(sealed.get(0));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Return the maximum size of the next entry in bytes.
+   *
+   * <p>A journal wrapping a caller-supplied buffer can't roll over, so its entries are bounded by
+   * the room left in that buffer as well.
+   *
+   * @return the maximum size of the next entry in bytes
+   */
+  public int entryCapacity() {
+    if (directory != null) {
+      return options.entrySize();
+    }
+    return Math.max(0, Math.min(options.entrySize(), segment.remaining() - FRAME));
+  }
+
+  /**
+   * Make room for the next entry, rolling over to a new segment if the current one is full.
+   *
+   * <p>Generated stashes reserve room for an entry before calling the prevalent system, so a full
+   * journal fails the call before the state of the system changes.
+   *
+   * @param length the length of the next entry in bytes
+   * @throws BufferOverflowException if the entry exceeds the maximum entry size or if the
+   *     current segment is full and can't roll over
+   * @throws UncheckedIOException if rolling over to a new segment fails
+   */
+  public void reserve(int length) {
+    if (!replayed) {
+      throw new IllegalStateException("replay() must be called first");
+    }
+    if (length > options.entrySize()) {
+      throw new BufferOverflowException();
+    }
+    if (FRAME + length > segment.remaining()) {
+      roll();
+    }
+  }
+
+  /**
+   * Append and commit an entry without a time value.
+   *
+   * @param entry buffer holding the remaining bytes of the entry to append
+   * @return the number of committed entries
+   * @throws BufferOverflowException if the entry exceeds the maximum entry size or if the
+   *     current segment is full and can't roll over
+   * @see #append(ByteBuffer, long)
+   */
+  public long append(ByteBuffer entry) {
+    return append(entry, Long.MIN_VALUE);
+  }
+
+  /**
+   * Append and commit an entry, rolling over to a new segment if the current one is full.
+   *
+   * @param entry buffer holding the remaining bytes of the entry to append
+   * @param time time value of the entry or {@link Long#MIN_VALUE}, recorded by the sparse index
+   * @return the number of committed entries
+   * @throws BufferOverflowException if the entry exceeds the maximum entry size or if the
+   *     current segment is full and can't roll over
+   */
+  public long append(ByteBuffer entry, long time) {
+    StashCommit event = StashCommit.start();
+    int length = entry.remaining();
+    reserve(length);
+    this.time = Math.max(this.time, time);
+    if (segmentCount == 0 || counter % options.indexInterval() == 0) {
+      point();
+    }
+    int start = segment.position();
+    segment.position(start + Integer.BYTES).putInt(length).putLong(counter).put(entry);
+    crc.reset();
+    crc.update(window.limit(segment.position()).position(start + Integer.BYTES));
+    segment.putInt(start, (int) crc.getValue());
+    segmentCount++;
+    written.lazySet(written.get() + FRAME + length);
+    committed.lazySet(++counter);
+    switch (options.durability().mode()) {
+      case EVERY_COMMIT -> force();
+      case GROUP -> {
+        if (counter - durable >= options.durability().maxBatch()) {
+          LockSupport.unpark(flusher);
+        }
+      }
+      case NONE -> {}
+    }
+    StashCommit.finish(event, counter - 1, FRAME + length);
+    return counter;
+  }
+
+  // index point is written before its entry is committed, uncommitted points are dropped on replay
+  private void point() {
+    lock.lock();
+    try {
+      index.add(counter, segment.position(), time);
+      if (indexChannel != null) {
+        index.write(indexChannel, index.size() - 1);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void roll() {
+    if (directory == null) {
+      throw new BufferOverflowException();
+    }
+    if (segmentCount == 0) {
+      return; // current segment is still empty
+    }
+    try {
+      Path next = createSegment(directory, counter, options.segmentSize());
+      lock.lock();
+      try {
+        segment.putLong(0, segmentCount);
+        ((MappedByteBuffer) segment).force();
+        Path path = path(directory, counter - segmentCount, SEGMENT_EXTENSION);
+        sealed.add(path);
+        indexes.add(index);
+        if (compressor != null) {
+          compressions.add(path);
+        }
+        segment = map(next, FileChannel.MapMode.READ_WRITE);
+        index = new Index();
+        indexChannel.close();
+        indexChannel = FileChannel.open(index(next), CREATE, TRUNCATE_EXISTING, WRITE);
+      } finally {
+        lock.unlock();
+      }
+      segment.position(HEADER);
+      window = segment.duplicate();
+      segmentCount = 0;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // background compression loop: compress sealed segments one by one
+  private void compress() {
+    while (true) {
+      Path path;
+      try {
+        path = compressions.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (path == STOP) {
+        return;
+      }
+      compress(path);
+    }
+  }
+
+  private void compress(Path segment) {
+    Path target = compressed(segment);
+    Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+    try {
+      Deflated.write(map(segment, FileChannel.MapMode.READ_ONLY), options.compression(), temporary);
+      Files.move(temporary, target, ATOMIC_MOVE);
+      int position;
+      lock.lock();
+      try {
+        position = sealed.indexOf(segment);
+        if (position >= 0) {
+          sealed.set(position, target);
+        }
+      } finally {
+        lock.unlock();
+      }
+      // readers of the former path fall back to the compressed copy
+      Files.delete(position >= 0 ? segment : target);
+    } catch (IOException e) {
+      // the segment stays as-is, compressing it is retried when the journal is replayed again
+      try {
+        Files.deleteIfExists(temporary);
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+    }
+  }
+
+  // sealed segment is covered by the snapshot, if its successor starts at or before it
+  private boolean covered(int index) {
+    int successor = index + 1;
+    long next =
+        successor < sealed.size() ? sequence(sealed.get(successor)) : segment.getLong(Long.BYTES);
+    return next <= snapshot;
+  }
+
+  /**
+   * Write a snapshot of the prevalent system's current state.
+   *
+   * <p>The journal is rolled over to a new segment first, making the snapshot cover all sealed
+   * segments. The snapshot file is forced to the storage device before it is atomically renamed.
+   *
+   * @param system the prevalent system, must implement {@link Stashable}
+   * @return the number of entries covered by the snapshot
+   * @throws IOException if writing the snapshot file fails
+   */
+  public long snapshot(Object system) throws IOException {
+    if (directory == null) {
+      throw new UnsupportedOperationException("Snapshots require a journal directory");
+    }
+    if (!replayed) {
+      throw new IllegalStateException("replay() must be called first");
+    }
+    Stashable.check(system.getClass());
+    roll();
+    ByteBuffer buffer = stash((Stashable) system);
+    Path target = path(directory, counter, SNAPSHOT_EXTENSION);
+    Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, CREATE, TRUNCATE_EXISTING, WRITE)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+    Files.move(temporary, target, ATOMIC_MOVE);
+    snapshot = counter;
+    return counter;
+  }
+
+  private ByteBuffer stash(Stashable system) {
+    for (int capacity = 1 << 16; ; capacity <<= 1) {
+      ByteBuffer buffer = ByteBuffer.allocate(capacity);
+      try {
+        system.stash(buffer.putLong(counter));
+        return buffer.flip();
+      } catch (BufferOverflowException e) {
+        if (capacity >= 1 << 30) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * Delete all sealed segments, their index files and snapshots preceding the newest snapshot.
+   *
+   * @throws IOException if deleting a file fails
+   */
+  public void truncate() throws IOException {
+    retire(Files::delete);
+  }
+
+  /**
+   * Move all sealed segments, their index files and snapshots preceding the newest snapshot to the
+   * given directory.
+   *
+   * @param archive the directory to move files to
+   * @throws IOException if moving a file fails
+   */
+  public void archive(Path archive) throws IOException {
+    Files.createDirectories(archive);
+    retire(path -> Files.move(path, archive.resolve(path.getFileName())));
+  }
+
+  @FunctionalInterface
+  private interface Retirement {
+    void retire(Path path) throws IOException;
+  }
+
+  private void retire(Retirement retirement) throws IOException {
+    if (directory == null || snapshot == 0) {
+      return;
+    }
+    int covered = 0;
+    while (covered < sealed.size() && covered(covered)) {
+      covered++;
+    }
+    lock.lock();
+    try {
+      for (Iterator<Path> iterator = sealed.iterator(); covered > 0; covered--) {
+        Path path = iterator.next();
+        retirement.retire(path);
+        if (Files.exists(index(path))) {
+          retirement.retire(index(path));
+        }
+        iterator.remove();
+        indexes.remove(0);
+      }
+    } finally {
+      lock.unlock();
+    }
+    for (Path path : list(directory, SNAPSHOT_EXTENSION)) {
+      if (sequence(path) < snapshot) {
+        retirement.retire(path);
+      }
+    }
+  }
+
+  /**
+   * Force all committed entries to be written to the storage device and complete the futures of
+   * callers waiting for them.
+   */
+  public void force() {
+    List<Waiter> completed = List.of();
+    lock.lock();
+    try {
+      long sequence = committed.get();
+      if (sequence > durable) {
+        long bytes = written.get();
+        if (segment instanceof MappedByteBuffer mapped) {
+          StashFlush event = StashFlush.start();
+          mapped.force();
+          StashFlush.finish(event, sequence, sequence - durable, bytes - flushed);
+        }
+        flushed = bytes;
+        durable = sequence;
+      }
+      while (!waiters.isEmpty() && waiters.peek().sequence() <= durable) {
+        if (completed.isEmpty()) {
+          completed = new ArrayList<>();
+        }
+        completed.add(waiters.poll());
+      }
+    } finally {
+      lock.unlock();
+    }
+    completed.forEach(waiter -> waiter.future().complete(waiter.sequence()));
+  }
+
+  /**
+   * Return a future that completes when the given number of entries is durable.
+   *
+   * @param sequence the number of committed entries to wait for
+   * @return a future completing with the given sequence number
+   */
+  public CompletableFuture<Long> whenDurable(long sequence) {
+    if (sequence <= durable) {
+      return CompletableFuture.completedFuture(sequence);
+    }
+    CompletableFuture<Long> future = new CompletableFuture<>();
+    lock.lock();
+    try {
+      if (sequence > durable) {
+        waiters.add(new Waiter(sequence, future));
+        return future;
+      }
+    } finally {
+      lock.unlock();
+    }
+    future.complete(sequence);
+    return future;
+  }
+
+  /** {@return a future that completes when all entries committed so far are durable} */
+  public CompletableFuture<Long> whenDurable() {
+    return whenDurable(committed.get());
+  }
+
+  // group commit loop: force once per interval or as soon as a batch is full
+  private void flush() {
+    long nanos = options.durability().interval().toNanos();
+    while (!closed) {
+      LockSupport.parkNanos(this, nanos);
+      if (committed.get() <= durable) {
+        continue;
+      }
+      try {
+        force();
+      } catch (RuntimeException e) {
+        List<Waiter> failed;
+        lock.lock();
+        try {
+          failed = new ArrayList<>(waiters);
+          waiters.clear();
+        } finally {
+          lock.unlock();
+        }
+        failed.forEach(waiter -> waiter.future().completeExceptionally(e));
+      }
+    }
+  }
+
+  /**
+   * Stop the group commit flusher and the compressor, if there are some, force all committed
+   * entries, close the index file and unregister the monitor, if there's one.
+   *
+   * <p>Segments waiting for compression stay as-is until the journal is replayed again.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    if (flusher != null) {
+      LockSupport.unpark(flusher);
+      join(flusher);
+    }
+    if (compressor != null) {
+      compressions.clear();
+      compressions.add(STOP);
+      join(compressor);
+    }
+    force();
+    ObjectName name = monitor;
+    if (name != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+      } catch (JMException e) {
+        // already unregistered
+      }
+      monitor = null;
+    }
+    if (indexChannel != null) {
+      try {
+        indexChannel.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private static void join(Thread thread) {
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return format("Journal{directory=%s, counter=%d, segment=%s}", directory, counter, segment);
+  }
+}
@@ -0,0 +1,56 @@
+package com.github.sormuras.stash;
+
+import java.io.IOException;
+
+/**
+ * Management interface of a journal backing a generated stash.
+ *
+ * @see JournalMonitor
+ */
+public interface JournalMXBean {
+
+  /** {@return directory of the segment files, empty for a wrapped buffer} */
+  String getDirectory();
+
+  /** {@return number of committed entries} */
+  long getCounter();
+
+  /** {@return number of entries forced to the storage device} */
+  long getDurable();
+
+  /** {@return number of committed entries not forced to the storage device yet} */
+  long getFlushLag();
+
+  /** {@return sequence number covered by the newest restored or written snapshot, or 0} */
+  long getLastSnapshot();
+
+  /** {@return number of sealed segments} */
+  int getSealedSegments();
+
+  /** {@return number of bytes written to the current segment or buffer, including its header} */
+  int getPosition();
+
+  /** {@return capacity of the current segment or buffer in bytes} */
+  int getCapacity();
+
+  /** {@return ratio of the current segment's or buffer's capacity in use, between 0 and 1} */
+  double getFillRatio();
+
+  /** {@return milliseconds spent restoring the snapshot and replaying the journal} */
+  long getReplayMillis();
+
+  /** Force all committed entries to the storage device. */
+  void force();
+
+  /**
+   * Write a snapshot of the prevalent system's current state.
+   *
+   * <p>The snapshot is taken by the calling thread, journaled calls must not run concurrently
+   * unless the registered snapshotter synchronizes with them.
+   *
+   * @return the number of entries covered by the snapshot
+   * @throws IOException if writing the snapshot file fails
+   * @throws UnsupportedOperationException if no snapshotter was registered
+   */
+  long snapshot() throws IOException;
+}
@@ -0,0 +1,138 @@
+package com.github.sormuras.stash;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Journal state exposed to the platform MBean server.
+ *
+ * <p>A registered monitor is unregistered when its journal is closed. Until then, the MBean server
+ * keeps the journal and the prevalent system reachable.
+ *
+ * <p>Usage: {@code @Stash(monitor = true)} makes generated stashes register themselves, without a
+ * snapshotter. The stash doesn't know the guard serializing its callers, so taking a snapshot on
+ * the MBean server's thread would race journaled calls. Register a monitor explicitly, passing a
+ * snapshotter that holds the guard's write lock, to expose the snapshot operation.
+ */
+public final class JournalMonitor implements JournalMXBean {
+
+  /** Domain of the registered object names. */
+  public static final String DOMAIN = "com.github.sormuras.stash";
+
+  /** Takes a snapshot, usually the generated stash's {@code snapshot()} method. */
+  @FunctionalInterface
+  public interface Snapshotter {
+    /**
+     * Write a snapshot of the prevalent system's current state.
+     *
+     * @return the number of entries covered by the snapshot
+     * @throws IOException if writing the snapshot file fails
+     */
+    long snapshot() throws IOException;
+  }
+
+  private static final AtomicLong BUFFERS = new AtomicLong();
+
+  /**
+   * Register a monitor of the given journal with the platform MBean server.
+   *
+   * <p>The object name is {@code com.github.sormuras.stash:type=<type>,name=<name>}, the name being
+   * the quoted journal directory or {@code buffer-<n>} for a wrapped buffer.
+   *
+   * @param journal the journal to monitor
+   * @param type type of the stash, usually the simple name of the prevalent system interface
+   * @param snapshotter takes a snapshot on request, {@code null} makes the operation fail
+   * @return the registered object name
+   * @throws IllegalStateException if registering fails, e.g. if the journal's directory is
+   *     monitored already
+   */
+  public static ObjectName register(Journal journal, String type, Snapshotter snapshotter) {
+    String name =
+        journal.directory() == null
+            ? "buffer-" + BUFFERS.incrementAndGet()
+            : ObjectName.quote(journal.directory().toString());
+    try {
+      ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + name);
+      var server = ManagementFactory.getPlatformMBeanServer();
+      server.registerMBean(new JournalMonitor(journal, snapshotter), objectName);
+      journal.monitored(objectName);
+      return objectName;
+    } catch (JMException e) {
+      throw new IllegalStateException("Registering monitor failed: " + name, e);
+    }
+  }
+
+  private final Journal journal;
+  private final Snapshotter snapshotter;
+
+  private JournalMonitor(Journal journal, Snapshotter snapshotter) {
+    this.journal = journal;
+    this.snapshotter = snapshotter;
+  }
+
+  @Override
+  public String getDirectory() {
+    return journal.directory() == null ? "" : journal.directory().toString();
+  }
+
+  @Override
+  public long getCounter() {
+    return journal.committed();
+  }
+
+  @Override
+  public long getDurable() {
+    return journal.durable();
+  }
+
+  @Override
+  public long getFlushLag() {
+    return Math.max(0, journal.committed() - journal.durable());
+  }
+
+  @Override
+  public long getLastSnapshot() {
+    return journal.lastSnapshot();
+  }
+
+  @Override
+  public int getSealedSegments() {
+    return journal.sealed().size();
+  }
+
+  @Override
+  public int getPosition() {
+    return journal.position();
+  }
+
+  @Override
+  public int getCapacity() {
+    return journal.capacity();
+  }
+
+  @Override
+  public double getFillRatio() {
+    return (double) journal.position() / journal.capacity();
+  }
+
+  @Override
+  public long getReplayMillis() {
+    return journal.replayNanos() / 1_000_000;
+  }
+
+  @Override
+  public void force() {
+    journal.force();
+  }
+
+  @Override
+  public long snapshot() throws IOException {
+    if (snapshotter == null) {
+      throw new UnsupportedOperationException("no snapshotter registered");
+    }
+    return snapshotter.snapshot();
+  }
+}
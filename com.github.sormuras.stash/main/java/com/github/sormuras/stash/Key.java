@@ -0,0 +1,20 @@
+package com.github.sormuras.stash;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Partition key annotation.
+ *
+ * <p>Journaled calls with keys of different partitions may be replayed concurrently, if the
+ * implementation is {@link Partitioned}. Calls without a key are replayed as barriers.
+ *
+ * <p>Usage: {@code void deposit(@Key long account, long amount)}
+ *
+ * @see Partitioned#partition(Object, int)
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Key {}
@@ -0,0 +1,161 @@
+package com.github.sormuras.stash;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Parallel replay workers.
+ *
+ * <p>The journal is read and decoded by a single thread, which fans keyed calls out to one of
+ * several lanes. All calls of a partition are executed by the same lane, thus in journal order.
+ * Calls without a key wait for all lanes to become idle and are executed by the reading thread.
+ */
+public final class Lanes implements AutoCloseable {
+
+  /**
+   * Replay the journal, in parallel if the system is partitioned.
+   *
+   * @param journal the journal to replay
+   * @param system the system to replay into
+   * @param spawner sequential spawner
+   * @param timer returns the time value of an entry, see {@link Journal#replay(Consumer,
+   *     ToLongFunction)}
+   * @param forker parallel spawner, forking keyed calls to the given lanes
+   * @return the number of committed entries
+   */
+  public static long replay(
+      Journal journal,
+      Object system,
+      Consumer<ByteBuffer> spawner,
+      ToLongFunction<ByteBuffer> timer,
+      BiConsumer<Lanes, ByteBuffer> forker) {
+    if (!(system instanceof Partitioned partitioned) || partitioned.partitions() <= 1) {
+      return journal.replay(spawner, timer);
+    }
+    try (Lanes lanes = new Lanes(partitioned.partitions())) {
+      return journal.replay(source -> forker.accept(lanes, source), timer);
+    }
+  }
+
+  private static final int QUEUE_CAPACITY = 1024;
+  private static final Runnable STOP = () -> {};
+
+  private final int partitions;
+  private final Thread[] threads;
+  private final List<BlockingQueue<Runnable>> queues;
+  private final AtomicLong pending;
+  private final AtomicReference<Throwable> failure;
+
+  /**
+   * Start lanes for the given number of partitions, using at most one lane per processor.
+   *
+   * @param partitions number of partitions
+   */
+  public Lanes(int partitions) {
+    if (partitions <= 0) {
+      throw new IllegalArgumentException("partitions must be positive: " + partitions);
+    }
+    int count = Math.min(partitions, Runtime.getRuntime().availableProcessors());
+    this.partitions = partitions;
+    this.threads = new Thread[count];
+    this.queues = new ArrayList<>(count);
+    this.pending = new AtomicLong();
+    this.failure = new AtomicReference<>();
+    for (int index = 0; index < count; index++) {
+      BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+      queues.add(queue);
+      threads[index] = new Thread(() -> work(queue), "stash-lane-" + index);
+      threads[index].setDaemon(true);
+      threads[index].start();
+    }
+  }
+
+  /** {@return the number of lanes} */
+  public int count() {
+    return threads.length;
+  }
+
+  /**
+   * Execute a call on the lane of the given key's partition.
+   *
+   * @param key the partition key
+   * @param call the call to execute
+   */
+  public void execute(Object key, Runnable call) {
+    int lane = Partitioned.partition(key, partitions) % threads.length;
+    pending.incrementAndGet();
+    put(queues.get(lane), call);
+  }
+
+  /** Wait for all lanes to execute their pending calls, rethrowing the first failure. */
+  public void await() {
+    while (pending.get() != 0) {
+      checkFailure();
+      LockSupport.parkNanos(10_000);
+    }
+    checkFailure();
+  }
+
+  private void checkFailure() {
+    Throwable throwable = failure.get();
+    if (throwable instanceof RuntimeException exception) {
+      throw exception;
+    }
+    if (throwable instanceof Error error) {
+      throw error;
+    }
+  }
+
+  private void put(BlockingQueue<Runnable> queue, Runnable runnable) {
+    try {
+      queue.put(runnable);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while forking call", e);
+    }
+  }
+
+  private void work(BlockingQueue<Runnable> queue) {
+    while (true) {
+      Runnable call;
+      try {
+        call = queue.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (call == STOP) {
+        return;
+      }
+      try {
+        if (failure.get() == null) {
+          call.run();
+        }
+      } catch (Throwable throwable) {
+        failure.compareAndSet(null, throwable);
+      } finally {
+        pending.decrementAndGet();
+      }
+    }
+  }
+
+  /** Wait for all pending calls and stop the lanes. */
+  @Override
+  public void close() {
+    try {
+      await();
+    } finally {
+      for (BlockingQueue<Runnable> queue : queues) {
+        put(queue, STOP);
+      }
+    }
+  }
+}
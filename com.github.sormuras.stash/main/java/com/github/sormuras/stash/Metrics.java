@@ -0,0 +1,208 @@
+package com.github.sormuras.stash;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-method counters of a generated stash.
+ *
+ * <p>A generated stash records every call of an interface method: the number of invocations, the
+ * number of bytes appended to the journal and the nanoseconds spent calling the implementation.
+ * Recording is lock-free and doesn't allocate. Replayed calls aren't recorded.
+ *
+ * <p>Usage: {@code demoStash.metrics().method("store(int)").latency().valueAt(0.99)}
+ *
+ * @see Stash#metrics()
+ */
+public final class Metrics {
+
+  private final Method[] methods;
+
+  /**
+   * Create counters for the given methods.
+   *
+   * @param names method names, their positions are the indices passed to {@link #record}
+   */
+  public Metrics(String... names) {
+    this.methods = new Method[names.length];
+    for (int index = 0; index < names.length; index++) {
+      methods[index] = new Method(names[index]);
+    }
+  }
+
+  /**
+   * Record a single call.
+   *
+   * @param method index of the called method
+   * @param bytes number of bytes appended to the journal, {@code 0} for volatile methods
+   * @param nanos nanoseconds spent calling the implementation
+   */
+  public void record(int method, int bytes, long nanos) {
+    Method target = methods[method];
+    target.invocations.increment();
+    target.bytes.add(bytes);
+    target.nanos.add(nanos);
+    target.latency.record(nanos);
+  }
+
+  /** {@return counters of all methods in declaration order} */
+  public List<Method> methods() {
+    return List.of(methods);
+  }
+
+  /**
+   * Find the counters of a method.
+   *
+   * @param name name of the method, followed by its parameter types in parentheses
+   * @return the counters of the method
+   * @throws NoSuchElementException if there's no method with the given name
+   */
+  public Method method(String name) {
+    for (Method method : methods) {
+      if (method.name.equals(name)) {
+        return method;
+      }
+    }
+    throw new NoSuchElementException(name);
+  }
+
+  @Override
+  public String toString() {
+    List<String> lines = new ArrayList<>();
+    for (Method method : methods) {
+      lines.add(method.toString());
+    }
+    return String.join(System.lineSeparator(), lines);
+  }
+
+  /** Counters of a single method. */
+  public static final class Method {
+
+    private final String name;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final Histogram latency = new Histogram();
+
+    Method(String name) {
+      this.name = name;
+    }
+
+    /** {@return name of the method, followed by its parameter types in parentheses} */
+    public String name() {
+      return name;
+    }
+
+    /** {@return number of invocations} */
+    public long invocations() {
+      return invocations.sum();
+    }
+
+    /** {@return number of bytes appended to the journal, excluding frames} */
+    public long bytes() {
+      return bytes.sum();
+    }
+
+    /** {@return nanoseconds spent calling the implementation} */
+    public long nanos() {
+      return nanos.sum();
+    }
+
+    /** {@return distribution of the nanoseconds spent per invocation} */
+    public Histogram latency() {
+      return latency;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%s invocations=%d bytes=%d nanos=%d p50=%d p99=%d",
+          name,
+          invocations(),
+          bytes(),
+          nanos(),
+          latency.valueAt(0.5),
+          latency.valueAt(0.99));
+    }
+  }
+
+  /**
+   * Log-linear histogram of non-negative values.
+   *
+   * <p>Every power of two is split into {@value #SUB_BUCKETS} buckets of equal width, values
+   * below {@value #SUB_BUCKETS} get a bucket of their own. Thus a value is reported with a relative
+   * error of less than 1 / {@value #SUB_BUCKETS}, using a fixed number of counters.
+   */
+  public static final class Histogram {
+
+    /** Number of buckets per power of two. */
+    public static final int SUB_BUCKETS = 8;
+
+    private static final int SUB_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    private final AtomicLongArray counts = new AtomicLongArray(bucket(Long.MAX_VALUE) + 1);
+
+    /** Create an empty histogram. */
+    public Histogram() {}
+
+    // values below SUB_BUCKETS map to themselves, larger ones to their top SUB_BITS + 1 bits
+    static int bucket(long value) {
+      if (value < SUB_BUCKETS) {
+        return (int) Math.max(0, value);
+      }
+      int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+      return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    // smallest value of the given bucket
+    static long lowest(int bucket) {
+      if (bucket < SUB_BUCKETS) {
+        return bucket;
+      }
+      int shift = bucket / SUB_BUCKETS - 1;
+      return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * Count a value, negative values are counted as {@code 0}.
+     *
+     * @param value the value to count
+     */
+    public void record(long value) {
+      counts.incrementAndGet(bucket(value));
+    }
+
+    /** {@return number of counted values} */
+    public long count() {
+      long count = 0;
+      for (int bucket = 0; bucket < counts.length(); bucket++) {
+        count += counts.get(bucket);
+      }
+      return count;
+    }
+
+    /**
+     * Find the value at the given quantile.
+     *
+     * @param quantile the quantile between {@code 0} and {@code 1}, e.g. {@code 0.99}
+     * @return the largest value of the bucket holding the quantile, or {@code 0} if empty
+     */
+    public long valueAt(double quantile) {
+      if (quantile < 0 || quantile > 1) {
+        throw new IllegalArgumentException("quantile out of range: " + quantile);
+      }
+      long rank = (long) Math.ceil(quantile * count());
+      long seen = 0;
+      for (int bucket = 0; bucket < counts.length(); bucket++) {
+        seen += counts.get(bucket);
+        if (seen > 0 && seen >= rank) {
+          return bucket + 1 < counts.length() ? lowest(bucket + 1) - 1 : Long.MAX_VALUE;
+        }
+      }
+      return 0;
+    }
+  }
+}
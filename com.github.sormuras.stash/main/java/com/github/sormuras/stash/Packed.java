@@ -0,0 +1,19 @@
+package com.github.sormuras.stash;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Int or long array annotation for values within a narrow range.
+ *
+ * <p>Elements are stored in blocks of 128 as offsets to the block's minimum, bit-packed at the
+ * width of the largest offset. A block of values spanning less than 256 takes a byte per value.
+ *
+ * @see Stashable.Buffer.Compact#stashPackedIntArray(java.nio.ByteBuffer, int[])
+ * @see Stashable.Buffer.Compact#stashPackedLongArray(java.nio.ByteBuffer, long[])
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Packed {}
@@ -0,0 +1,26 @@
+package com.github.sormuras.stash;
+
+/**
+ * Implementation keeps its state in independent partitions.
+ *
+ * <p>Calls with {@link Key} arguments mapping to different partitions must not touch shared state,
+ * so they can be replayed by parallel workers. Calls sharing a partition are replayed in journal
+ * order.
+ */
+public interface Partitioned {
+
+  /**
+   * Compute the partition of a key.
+   *
+   * @param key the key, may be {@code null}
+   * @param partitions number of partitions
+   * @return partition index between {@code 0} and {@code partitions - 1}
+   */
+  static int partition(Object key, int partitions) {
+    int hash = key == null ? 0 : key.hashCode();
+    return Math.floorMod(hash ^ (hash >>> 16), partitions);
+  }
+
+  /** {@return the number of partitions, {@code 1} disables parallel replay} */
+  int partitions();
+}
@@ -0,0 +1,228 @@
+package com.github.sormuras.stash;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Single-writer command pipeline.
+ *
+ * <p>Producers encode commands into the slots of a bounded, lock-free
+ * multi-producer/single-consumer ring. Slot buffers start small and grow on demand, up to the
+ * maximum command size. A dedicated applier thread drains the ring in submission order, applies
+ * each command and completes its future with the result. Dependent stages attached via non-async
+ * methods run on the applier thread, so they should be short.
+ *
+ * <p>Usage: {@code new Pipeline(stash::execute, 1024, entrySize).submit(target -> ...)}
+ */
+public final class Pipeline implements AutoCloseable {
+
+  /** Applies an encoded command on the applier thread. */
+  @FunctionalInterface
+  public interface Applier {
+
+    /**
+     * Apply the given command.
+     *
+     * @param command the encoded command, positioned at its first byte
+     * @return the result of the command, may be {@code null}
+     */
+    Object apply(ByteBuffer command);
+  }
+
+  /** Default number of slots. */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  /** Initial size of a slot buffer in bytes, unless the maximum command size is smaller. */
+  public static final int INITIAL_SLOT_SIZE = 256;
+
+  private static final int SPINS = 1000;
+  private static final long PARK_NANOS = 1_000_000;
+
+  private static final class Slot {
+
+    private ByteBuffer buffer;
+    private CompletableFuture<Object> future;
+    private Callable<?> query;
+    private volatile long sequence;
+
+    private Slot(long sequence, int commandSize) {
+      this.buffer = ByteBuffer.allocate(Math.min(INITIAL_SLOT_SIZE, commandSize));
+      this.sequence = sequence;
+    }
+  }
+
+  private final Applier applier;
+  private final int commandSize;
+  private final Slot[] slots;
+  private final int mask;
+  private final AtomicLong tail;
+  private final Thread thread;
+  private long head;
+  private volatile boolean waiting;
+  private volatile boolean closed;
+
+  /**
+   * Create a pipeline and start its applier thread.
+   *
+   * @param applier applies encoded commands
+   * @param capacity number of slots, must be a power of two
+   * @param commandSize maximum size of an encoded command in bytes
+   */
+  public Pipeline(Applier applier, int capacity, int commandSize) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+    }
+    this.applier = applier;
+    this.commandSize = commandSize;
+    this.slots = new Slot[capacity];
+    this.mask = capacity - 1;
+    this.tail = new AtomicLong();
+    for (int index = 0; index < capacity; index++) {
+      slots[index] = new Slot(index, commandSize);
+    }
+    this.thread = new Thread(this::drain, "stash-applier");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Encode a command into the next free slot and enqueue it.
+   *
+   * @param encoder writes the command into the given slot buffer
+   * @param <R> type of the result
+   * @return a future completing with the result of applying the command
+   */
+  public <R> CompletableFuture<R> submit(Consumer<ByteBuffer> encoder) {
+    return enqueue(encoder, null);
+  }
+
+  /**
+   * Enqueue a query that doesn't need to be journaled, but must run on the applier thread.
+   *
+   * @param query the query to call
+   * @param <R> type of the result
+   * @return a future completing with the result of the query
+   */
+  public <R> CompletableFuture<R> query(Callable<R> query) {
+    return enqueue(null, query);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <R> CompletableFuture<R> enqueue(Consumer<ByteBuffer> encoder, Callable<?> query) {
+    if (closed) {
+      throw new IllegalStateException("pipeline is closed");
+    }
+    long sequence = claim();
+    Slot slot = slots[(int) sequence & mask];
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    slot.future = future;
+    slot.query = query;
+    if (encoder != null) {
+      try {
+        slot.buffer = encode(slot.buffer, encoder);
+      } catch (RuntimeException e) {
+        // a claimed slot must be published, the applier skips completed futures
+        future.completeExceptionally(e);
+      }
+    }
+    slot.sequence = sequence + 1;
+    if (waiting) {
+      LockSupport.unpark(thread);
+    }
+    return (CompletableFuture<R>) future;
+  }
+
+  // encode into the slot buffer, doubling its size up to the maximum command size on overflow
+  private ByteBuffer encode(ByteBuffer buffer, Consumer<ByteBuffer> encoder) {
+    while (true) {
+      try {
+        encoder.accept(buffer.clear());
+        return buffer.flip();
+      } catch (BufferOverflowException e) {
+        if (buffer.capacity() >= commandSize) {
+          throw e;
+        }
+        buffer = ByteBuffer.allocate((int) Math.min(2L * buffer.capacity(), commandSize));
+      }
+    }
+  }
+
+  // claim the next free slot, waiting for the applier if the ring is full
+  private long claim() {
+    while (true) {
+      long sequence = tail.get();
+      long available = slots[(int) sequence & mask].sequence;
+      if (available == sequence) {
+        if (tail.compareAndSet(sequence, sequence + 1)) {
+          return sequence;
+        }
+      } else if (available < sequence) {
+        Thread.onSpinWait();
+      }
+    }
+  }
+
+  private void drain() {
+    int idle = 0;
+    while (true) {
+      Slot slot = slots[(int) head & mask];
+      if (slot.sequence == head + 1) {
+        apply(slot);
+        slot.future = null;
+        slot.query = null;
+        slot.sequence = head + slots.length;
+        head++;
+        idle = 0;
+        continue;
+      }
+      if (closed && tail.get() == head) {
+        return;
+      }
+      if (++idle < SPINS) {
+        Thread.onSpinWait();
+        continue;
+      }
+      waiting = true;
+      if (slot.sequence != head + 1 && !closed) {
+        LockSupport.parkNanos(this, PARK_NANOS);
+      }
+      waiting = false;
+      idle = 0;
+    }
+  }
+
+  private void apply(Slot slot) {
+    CompletableFuture<Object> future = slot.future;
+    if (future.isDone()) {
+      return;
+    }
+    try {
+      Object result = slot.query != null ? slot.query.call() : applier.apply(slot.buffer);
+      future.complete(result);
+    } catch (Throwable e) {
+      future.completeExceptionally(e);
+    }
+  }
+
+  /** Apply all enqueued commands and stop the applier thread. */
+  @Override
+  public void close() {
+    closed = true;
+    LockSupport.unpark(thread);
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Pipeline{capacity=%d, tail=%d}", slots.length, tail.get());
+  }
+}
@@ -0,0 +1,79 @@
+package com.github.sormuras.stash;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Point-in-time recovery describing where replaying a journal stops.
+ *
+ * <p>Replay stops at the first entry with a sequence number at or after {@link #sequence()} or
+ * with a time value after {@link #time()}. That entry and all entries following it are discarded:
+ * either from the journal itself or from a copy of the journal created in the {@link #fork()}
+ * directory, leaving the original journal unchanged.
+ *
+ * <p>Usage: {@code Journal.Options.DEFAULT.withRecovery(Recovery.until(instant).forkTo(path))}
+ *
+ * @param sequence sequence number of the first entry to discard
+ * @param time the time value entries must not exceed, compared to the {@code @Time} parameter
+ * @param fork directory to recover a copy of the journal in, or {@code null} to recover in place
+ * @see Journal.Options#withRecovery(Recovery)
+ */
+public record Recovery(long sequence, long time, Path fork) {
+
+  /** Replay all committed entries. */
+  public static final Recovery NONE = new Recovery(Long.MAX_VALUE, Long.MAX_VALUE, null);
+
+  /**
+   * Create a recovery replaying all entries preceding the given sequence number.
+   *
+   * @param sequence sequence number of the first entry to discard
+   * @return a recovery truncating the journal in place
+   */
+  public static Recovery before(long sequence) {
+    return new Recovery(sequence, Long.MAX_VALUE, null);
+  }
+
+  /**
+   * Create a recovery replaying all entries up to the first one with a later time value.
+   *
+   * @param instant the instant time values of replayed entries must not exceed
+   * @return a recovery truncating the journal in place
+   */
+  public static Recovery until(Instant instant) {
+    return new Recovery(Long.MAX_VALUE, instant.toEpochMilli(), null);
+  }
+
+  /**
+   * Validate recovery.
+   *
+   * @param sequence sequence number of the first entry to discard
+   * @param time the time value entries must not exceed
+   * @param fork directory to recover a copy of the journal in, or {@code null}
+   */
+  public Recovery {
+    if (sequence < 0) {
+      throw new IllegalArgumentException("sequence must not be negative: " + sequence);
+    }
+  }
+
+  /** {@return a recovery copying the journal to the given directory and recovering the copy} */
+  public Recovery forkTo(Path directory) {
+    return new Recovery(sequence, time, Objects.requireNonNull(directory, "directory"));
+  }
+
+  /** {@return a recovery truncating the journal in place} */
+  public Recovery inPlace() {
+    return new Recovery(sequence, time, null);
+  }
+
+  /** {@return {@code true} if replay may stop before the last committed entry} */
+  public boolean isBounded() {
+    return sequence != Long.MAX_VALUE || time != Long.MAX_VALUE;
+  }
+
+  /** {@return {@code true} if the given entry and all following entries are discarded} */
+  boolean stops(long sequence, long time) {
+    return sequence >= this.sequence || time > this.time;
+  }
+}
@@ -0,0 +1,19 @@
+package com.github.sormuras.stash;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Ascending int or long array annotation, e.g. a list of ids or timestamps.
+ *
+ * <p>Each element is stored as the varint difference to its predecessor, so dense ids take a single
+ * byte each. Stashing an array that isn't sorted throws an {@link IllegalArgumentException}.
+ *
+ * @see Stashable.Buffer.Compact#stashSortedIntArray(java.nio.ByteBuffer, int[])
+ * @see Stashable.Buffer.Compact#stashSortedLongArray(java.nio.ByteBuffer, long[])
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Sorted {}
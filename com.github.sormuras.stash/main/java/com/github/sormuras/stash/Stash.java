@@ -21,4 +21,26 @@ public @interface Stash {
 
   /** {@return {@code true} to generate stash/spawn verification code, {@code false} to omit it} */
   boolean verify() default true;
+
+  /**
+   * {@return {@code true} to let the generated guard try optimistic {@link
+   * java.util.concurrent.locks.StampedLock} reads for volatile methods returning a value, {@code
+   * false} to use a {@link java.util.concurrent.locks.ReentrantReadWriteLock}}
+   */
+  boolean optimistic() default false;
+
+  /**
+   * {@return {@code true} to generate per-method {@link Metrics} recorded on every call, {@code
+   * false} to omit all recording code and the {@code metrics()} accessor}
+   *
+   * <p>Recording reads the clock twice and updates shared counters on every call, so it is opt-in.
+   */
+  boolean metrics() default false;
+
+  /**
+   * {@return {@code true} to register every generated stash with the platform MBean server via
+   * {@link JournalMonitor}, until its journal is closed, {@code false} to omit registering; the
+   * registered monitor doesn't take snapshots, as they'd race journaled calls}
+   */
+  boolean monitor() default false;
 }
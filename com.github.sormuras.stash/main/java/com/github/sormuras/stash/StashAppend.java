@@ -0,0 +1,62 @@
+package com.github.sormuras.stash;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event emitted by a generated stash for every journaled call.
+ *
+ * <p>The event's duration covers encoding, calling the implementation and appending the entry. By
+ * default only calls taking at least a millisecond are recorded.
+ */
+@Name("com.github.sormuras.stash.Append")
+@Label("Stash Append")
+@Category(Flight.CATEGORY)
+@Threshold("1 ms")
+@Description("Journaled call of a generated stash")
+public final class StashAppend extends Event {
+
+  /**
+   * Start timing a call, if the event is enabled.
+   *
+   * @return a started event or {@code null} if the event is disabled
+   */
+  public static StashAppend start() {
+    if (!Flight.APPEND.isEnabled()) {
+      return null;
+    }
+    StashAppend event = new StashAppend();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Commit a started event.
+   *
+   * @param event the started event or {@code null}
+   * @param method name of the called method, followed by its parameter types in parentheses
+   * @param bytes number of bytes appended to the journal
+   */
+  public static void finish(StashAppend event, String method, int bytes) {
+    if (event == null || !event.shouldCommit()) {
+      return;
+    }
+    event.method = method;
+    event.bytes = bytes;
+    event.commit();
+  }
+
+  @Label("Method")
+  private String method;
+
+  @Label("Bytes")
+  @DataAmount
+  private int bytes;
+
+  private StashAppend() {}
+}
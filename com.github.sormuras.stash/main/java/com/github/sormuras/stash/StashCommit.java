@@ -0,0 +1,52 @@
+package com.github.sormuras.stash;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event emitted by a journal for every committed entry.
+ *
+ * <p>The event's duration covers rolling over to a new segment and forcing the entry, if the
+ * journal's durability policy demands it. By default only commits taking at least a millisecond
+ * are recorded.
+ */
+@Name("com.github.sormuras.stash.Commit")
+@Label("Stash Commit")
+@Category(Flight.CATEGORY)
+@Threshold("1 ms")
+@Description("Entry committed to a journal")
+public final class StashCommit extends Event {
+
+  static StashCommit start() {
+    if (!Flight.COMMIT.isEnabled()) {
+      return null;
+    }
+    StashCommit event = new StashCommit();
+    event.begin();
+    return event;
+  }
+
+  static void finish(StashCommit event, long sequence, int bytes) {
+    if (event == null || !event.shouldCommit()) {
+      return;
+    }
+    event.sequence = sequence;
+    event.bytes = bytes;
+    event.commit();
+  }
+
+  @Label("Sequence")
+  private long sequence;
+
+  @Label("Bytes")
+  @Description("Size of the entry including its frame")
+  @DataAmount
+  private int bytes;
+
+  private StashCommit() {}
+}
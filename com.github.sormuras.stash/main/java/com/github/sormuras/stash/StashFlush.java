@@ -0,0 +1,49 @@
+package com.github.sormuras.stash;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Flight recorder event emitted by a journal whenever committed entries are forced. */
+@Name("com.github.sormuras.stash.Flush")
+@Label("Stash Flush")
+@Category(Flight.CATEGORY)
+@Description("Committed journal entries forced to the storage device")
+public final class StashFlush extends Event {
+
+  static StashFlush start() {
+    if (!Flight.FLUSH.isEnabled()) {
+      return null;
+    }
+    StashFlush event = new StashFlush();
+    event.begin();
+    return event;
+  }
+
+  static void finish(StashFlush event, long durable, long entries, long bytes) {
+    if (event == null || !event.shouldCommit()) {
+      return;
+    }
+    event.durable = durable;
+    event.entries = entries;
+    event.bytes = bytes;
+    event.commit();
+  }
+
+  @Label("Durable")
+  @Description("Number of entries forced so far")
+  private long durable;
+
+  @Label("Entries")
+  private long entries;
+
+  @Label("Bytes")
+  @Description("Size of the forced entries including their frames")
+  @DataAmount
+  private long bytes;
+
+  private StashFlush() {}
+}
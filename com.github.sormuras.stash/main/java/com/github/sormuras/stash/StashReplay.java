@@ -0,0 +1,47 @@
+package com.github.sormuras.stash;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Flight recorder event emitted by a journal for every segment it replayed. */
+@Name("com.github.sormuras.stash.Replay")
+@Label("Stash Replay")
+@Category(Flight.CATEGORY)
+@Description("Segment of a journal replayed")
+public final class StashReplay extends Event {
+
+  static StashReplay start() {
+    if (!Flight.REPLAY.isEnabled()) {
+      return null;
+    }
+    StashReplay event = new StashReplay();
+    event.begin();
+    return event;
+  }
+
+  static void finish(StashReplay event, String segment, long first, long entries) {
+    if (event == null || !event.shouldCommit()) {
+      return;
+    }
+    event.segment = segment;
+    event.first = first;
+    event.entries = entries;
+    event.commit();
+  }
+
+  @Label("Segment")
+  @Description("File name of the segment, empty for a wrapped buffer")
+  private String segment;
+
+  @Label("First")
+  @Description("Sequence number of the first replayed entry")
+  private long first;
+
+  @Label("Entries")
+  private long entries;
+
+  private StashReplay() {}
+}
@@ -6,6 +6,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -104,6 +105,43 @@ public interface Stashable {
       return source.get() == 1;
     }
 
+    /**
+     * Write a boolean array to the target buffer, packing eight values into a single byte.
+     *
+     * @param target buffer to write to
+     * @param value the boolean array to be written
+     */
+    static ByteBuffer stashBooleanArray(ByteBuffer target, boolean[] value) {
+      stashIntN(target, value.length);
+      for (int index = 0; index < value.length; index += Byte.SIZE) {
+        int bits = 0;
+        for (int bit = 0; bit < Byte.SIZE && index + bit < value.length; bit++) {
+          if (value[index + bit]) {
+            bits |= 1 << bit;
+          }
+        }
+        target.put((byte) bits);
+      }
+      return target;
+    }
+
+    /**
+     * Read a bit-packed boolean array from the source buffer.
+     *
+     * @param source byte buffer to read from
+     * @return boolean array
+     */
+    static boolean[] spawnBooleanArray(ByteBuffer source) {
+      boolean[] array = new boolean[spawnIntN(source)];
+      for (int index = 0; index < array.length; index += Byte.SIZE) {
+        int bits = source.get();
+        for (int bit = 0; bit < Byte.SIZE && index + bit < array.length; bit++) {
+          array[index + bit] = (bits & 1 << bit) != 0;
+        }
+      }
+      return array;
+    }
+
     /**
      * Write a byte array to the target buffer.
      *
@@ -218,21 +256,160 @@ public interface Stashable {
       }
     }
 
+    /**
+     * Store a small int value, which may be negative, as a ZigZag encoded varint.
+     *
+     * @param target buffer to write to
+     * @param value int value to be written
+     */
+    static ByteBuffer stashIntZ(ByteBuffer target, @Z int value) {
+      int zigzag = (value << 1) ^ (value >> 31);
+      while ((zigzag & ~0x7F) != 0) {
+        target.put((byte) (0x80 | (zigzag & 0x7F)));
+        zigzag >>>= 7;
+      }
+      return target.put((byte) zigzag);
+    }
+
+    /**
+     * Read next ZigZag encoded int value.
+     *
+     * @param source byte buffer to read from
+     * @return int value
+     */
+    static @Z int spawnIntZ(ByteBuffer source) {
+      int zigzag = spawnIntN(source);
+      return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * Store a small long value, which may be negative, as a ZigZag encoded varint.
+     *
+     * @param target buffer to write to
+     * @param value long value to be written
+     */
+    static ByteBuffer stashLongZ(ByteBuffer target, @Z long value) {
+      return stashUnsigned(target, (value << 1) ^ (value >> 63));
+    }
+
+    // varint of all 64 bits, read by spawnLongN
+    private static ByteBuffer stashUnsigned(ByteBuffer target, long value) {
+      while ((value & ~0x7FL) != 0) {
+        target.put((byte) (0x80 | (value & 0x7F)));
+        value >>>= 7;
+      }
+      return target.put((byte) value);
+    }
+
+    /**
+     * Read next ZigZag encoded long value.
+     *
+     * @param source byte buffer to read from
+     * @return long value
+     */
+    static @Z long spawnLongZ(ByteBuffer source) {
+      long zigzag = spawnLongN(source);
+      return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
     /**
      * Store string using UTF 8 charset.
      *
      * @param target buffer to write to
-     * @param string string to store
+     * @param string string to store, may be {@code null}
      */
     static ByteBuffer stashString(ByteBuffer target, String string) {
-      return stashString(target, string, StandardCharsets.UTF_8);
+      return stashCharSequence(target, string);
+    }
+
+    /**
+     * Store a char sequence using UTF-8 charset, without converting it to a string first.
+     *
+     * <p>The encoded length is written as a positive varint, followed by the encoded bytes. Thus
+     * the sequence can be read via {@link #spawnString(ByteBuffer)}. Unpaired surrogates are
+     * replaced by {@code '?'}, as {@link String#getBytes(Charset)} does. A {@code null} sequence
+     * is written as length {@code -1} without any bytes.
+     *
+     * @param target buffer to write to
+     * @param sequence char sequence to store, may be {@code null}
+     */
+    static ByteBuffer stashCharSequence(ByteBuffer target, CharSequence sequence) {
+      if (sequence == null) {
+        return stashNullLength(target);
+      }
+      int length = sequence.length();
+      int ascii = 0;
+      while (ascii < length && sequence.charAt(ascii) < 0x80) {
+        ascii++;
+      }
+      if (ascii == length) {
+        stashIntN(target, length);
+        for (int index = 0; index < length; index++) {
+          target.put((byte) sequence.charAt(index));
+        }
+        return target;
+      }
+      stashIntN(target, ascii + encodedLength(sequence, ascii));
+      for (int index = 0; index < ascii; index++) {
+        target.put((byte) sequence.charAt(index));
+      }
+      for (int index = ascii; index < length; index++) {
+        char c = sequence.charAt(index);
+        if (c < 0x80) {
+          target.put((byte) c);
+        } else if (c < 0x800) {
+          target.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+        } else if (!Character.isSurrogate(c)) {
+          target.put((byte) (0xE0 | c >> 12));
+          target.put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+        } else if (isSurrogatePair(sequence, index)) {
+          int codePoint = Character.toCodePoint(c, sequence.charAt(++index));
+          target.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F));
+          target.put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+        } else {
+          target.put((byte) '?');
+        }
+      }
+      return target;
+    }
+
+    // length -1 as an unsigned varint: spawnIntN reads it back, stashIntN rejects it
+    private static ByteBuffer stashNullLength(ByteBuffer target) {
+      return target.putInt(-1).put((byte) 0x0F); // four 0xFF bytes in any byte order
+    }
+
+    // number of UTF-8 encoded bytes of the given sequence, starting at the given index
+    private static int encodedLength(CharSequence sequence, int start) {
+      int bytes = 0;
+      for (int index = start; index < sequence.length(); index++) {
+        char c = sequence.charAt(index);
+        if (c < 0x80) {
+          bytes += 1;
+        } else if (c < 0x800) {
+          bytes += 2;
+        } else if (!Character.isSurrogate(c)) {
+          bytes += 3;
+        } else if (isSurrogatePair(sequence, index)) {
+          bytes += 4;
+          index++;
+        } else {
+          bytes += 1;
+        }
+      }
+      return bytes;
+    }
+
+    private static boolean isSurrogatePair(CharSequence sequence, int index) {
+      return Character.isHighSurrogate(sequence.charAt(index))
+          && index + 1 < sequence.length()
+          && Character.isLowSurrogate(sequence.charAt(index + 1));
     }
 
     /**
      * Get string from source buffer using UTF-8 charset.
      *
      * @param source byte buffer to read from
-     * @return the string
+     * @return the string, {@code null} if a {@code null} string was stored
      * @see #spawnString(ByteBuffer, Charset)
      * @see #stashString(ByteBuffer, String)
      */
@@ -244,10 +421,13 @@ public interface Stashable {
      * Store string using UTF 8 charset.
      *
      * @param target buffer to write to
-     * @param string string to store
+     * @param string string to store, may be {@code null}
      * @param charset charset used for encoding
      */
     static ByteBuffer stashString(ByteBuffer target, String string, Charset charset) {
+      if (string == null) {
+        return stashNullLength(target);
+      }
       byte[] bytes = string.getBytes(charset);
       stashIntN(target, bytes.length);
       return target.put(bytes);
@@ -256,104 +436,485 @@ public interface Stashable {
     /**
      * Get string from source buffer using specified charset.
      *
+     * <p>The backing array of a heap buffer is decoded in place. Bytes of a direct or mapped
+     * buffer are copied into an array reused by the current thread first, only strings longer than
+     * 8 KiB need a temporary array of their own.
+     *
      * @param source byte buffer to read from
      * @param charset the charset used by interpreting the byte array
-     * @return the string
+     * @return the string, {@code null} if a {@code null} string was stored
      * @see #spawnString(ByteBuffer)
      * @see #stashString(ByteBuffer, String, Charset)
      * @see String#String(byte[], Charset)
      */
     static String spawnString(ByteBuffer source, Charset charset) {
-      byte[] bytes = new byte[spawnIntN(source)];
-      source.get(bytes);
-      return new String(bytes, charset);
+      int length = spawnIntN(source);
+      if (length == -1) {
+        return null;
+      }
+      if (length > source.remaining()) {
+        throw new BufferUnderflowException();
+      }
+      if (!source.hasArray()) {
+        // direct and mapped buffers are copied into a reused array first
+        byte[] bytes = Views.scratch(length);
+        source.get(bytes, 0, length);
+        return new String(bytes, 0, length, charset);
+      }
+      // decode the backing array in place, saving an intermediate copy of the bytes
+      int offset = source.arrayOffset() + source.position();
+      source.position(source.position() + length);
+      return new String(source.array(), offset, length, charset);
     }
 
+    /**
+     * Bulk routines for primitive arrays.
+     *
+     * <p>An array is stored as its varint length followed by its elements in the byte order of the
+     * buffer. Short arrays are copied without creating temporary objects, so spawning them into a
+     * reused array doesn't allocate at all.
+     */
     interface View {
 
+      /**
+       * Write char array to the target buffer.
+       *
+       * @param target buffer to write to
+       * @param value the array to be written
+       */
       static ByteBuffer stashCharArray(ByteBuffer target, char[] value) {
         stashIntN(target, value.length);
-        target.asCharBuffer().put(value);
-        target.position(target.position() + value.length * Character.BYTES);
+        Views.put(target, value);
         return target;
       }
 
+      /**
+       * Read char array from the source buffer.
+       *
+       * @param source byte buffer to read from
+       * @return a new array
+       */
       static char[] spawnCharArray(ByteBuffer source) {
-        char[] array = new char[spawnIntN(source)];
-        source.asCharBuffer().get(array);
-        source.position(source.position() + array.length * Character.BYTES);
+        return spawnCharArray(source, null);
+      }
+
+      /**
+       * Read char array from the source buffer, reusing the given array if its length matches.
+       *
+       * @param source byte buffer to read from
+       * @param reuse array to read into, may be {@code null}
+       * @return the reused array or a new one
+       */
+      static char[] spawnCharArray(ByteBuffer source, char[] reuse) {
+        int length = spawnIntN(source);
+        Views.require(source, length, Character.BYTES);
+        char[] array = reuse != null && reuse.length == length ? reuse : new char[length];
+        Views.get(source, array);
         return array;
       }
 
+      /**
+       * Write double array to the target buffer.
+       *
+       * @param target buffer to write to
+       * @param value the array to be written
+       */
       static ByteBuffer stashDoubleArray(ByteBuffer target, double[] value) {
         stashIntN(target, value.length);
-        target.asDoubleBuffer().put(value);
-        target.position(target.position() + value.length * Double.BYTES);
+        Views.put(target, value);
         return target;
       }
 
+      /**
+       * Read double array from the source buffer.
+       *
+       * @param source byte buffer to read from
+       * @return a new array
+       */
       static double[] spawnDoubleArray(ByteBuffer source) {
-        double[] array = new double[spawnIntN(source)];
-        source.asDoubleBuffer().get(array);
-        source.position(source.position() + array.length * Double.BYTES);
+        return spawnDoubleArray(source, null);
+      }
+
+      /**
+       * Read double array from the source buffer, reusing the given array if its length matches.
+       *
+       * @param source byte buffer to read from
+       * @param reuse array to read into, may be {@code null}
+       * @return the reused array or a new one
+       */
+      static double[] spawnDoubleArray(ByteBuffer source, double[] reuse) {
+        int length = spawnIntN(source);
+        Views.require(source, length, Double.BYTES);
+        double[] array = reuse != null && reuse.length == length ? reuse : new double[length];
+        Views.get(source, array);
         return array;
       }
 
+      /**
+       * Write float array to the target buffer.
+       *
+       * @param target buffer to write to
+       * @param value the array to be written
+       */
       static ByteBuffer stashFloatArray(ByteBuffer target, float[] value) {
         stashIntN(target, value.length);
-        target.asFloatBuffer().put(value);
-        target.position(target.position() + value.length * Float.BYTES);
+        Views.put(target, value);
         return target;
       }
 
+      /**
+       * Read float array from the source buffer.
+       *
+       * @param source byte buffer to read from
+       * @return a new array
+       */
       static float[] spawnFloatArray(ByteBuffer source) {
-        float[] array = new float[spawnIntN(source)];
-        source.asFloatBuffer().get(array);
-        source.position(source.position() + array.length * Float.BYTES);
+        return spawnFloatArray(source, null);
+      }
+
+      /**
+       * Read float array from the source buffer, reusing the given array if its length matches.
+       *
+       * @param source byte buffer to read from
+       * @param reuse array to read into, may be {@code null}
+       * @return the reused array or a new one
+       */
+      static float[] spawnFloatArray(ByteBuffer source, float[] reuse) {
+        int length = spawnIntN(source);
+        Views.require(source, length, Float.BYTES);
+        float[] array = reuse != null && reuse.length == length ? reuse : new float[length];
+        Views.get(source, array);
         return array;
       }
 
+      /**
+       * Write int array to the target buffer.
+       *
+       * @param target buffer to write to
+       * @param value the array to be written
+       */
       static ByteBuffer stashIntArray(ByteBuffer target, int[] value) {
         stashIntN(target, value.length);
-        target.asIntBuffer().put(value);
-        target.position(target.position() + value.length * Integer.BYTES);
+        Views.put(target, value);
         return target;
       }
 
+      /**
+       * Read int array from the source buffer.
+       *
+       * @param source byte buffer to read from
+       * @return a new array
+       */
       static int[] spawnIntArray(ByteBuffer source) {
-        int[] array = new int[spawnIntN(source)];
-        source.asIntBuffer().get(array);
-        source.position(source.position() + array.length * Integer.BYTES);
+        return spawnIntArray(source, null);
+      }
+
+      /**
+       * Read int array from the source buffer, reusing the given array if its length matches.
+       *
+       * @param source byte buffer to read from
+       * @param reuse array to read into, may be {@code null}
+       * @return the reused array or a new one
+       */
+      static int[] spawnIntArray(ByteBuffer source, int[] reuse) {
+        int length = spawnIntN(source);
+        Views.require(source, length, Integer.BYTES);
+        int[] array = reuse != null && reuse.length == length ? reuse : new int[length];
+        Views.get(source, array);
         return array;
       }
 
+      /**
+       * Write long array to the target buffer.
+       *
+       * @param target buffer to write to
+       * @param value the array to be written
+       */
       static ByteBuffer stashLongArray(ByteBuffer target, long[] value) {
         stashIntN(target, value.length);
-        target.asLongBuffer().put(value);
-        target.position(target.position() + value.length * Long.BYTES);
+        Views.put(target, value);
         return target;
       }
 
+      /**
+       * Read long array from the source buffer.
+       *
+       * @param source byte buffer to read from
+       * @return a new array
+       */
       static long[] spawnLongArray(ByteBuffer source) {
-        long[] array = new long[spawnIntN(source)];
-        source.asLongBuffer().get(array);
-        source.position(source.position() + array.length * Long.BYTES);
+        return spawnLongArray(source, null);
+      }
+
+      /**
+       * Read long array from the source buffer, reusing the given array if its length matches.
+       *
+       * @param source byte buffer to read from
+       * @param reuse array to read into, may be {@code null}
+       * @return the reused array or a new one
+       */
+      static long[] spawnLongArray(ByteBuffer source, long[] reuse) {
+        int length = spawnIntN(source);
+        Views.require(source, length, Long.BYTES);
+        long[] array = reuse != null && reuse.length == length ? reuse : new long[length];
+        Views.get(source, array);
         return array;
       }
 
+      /**
+       * Write short array to the target buffer.
+       *
+       * @param target buffer to write to
+       * @param value the array to be written
+       */
       static ByteBuffer stashShortArray(ByteBuffer target, short[] value) {
         stashIntN(target, value.length);
-        target.asShortBuffer().put(value);
-        target.position(target.position() + value.length * Short.BYTES);
+        Views.put(target, value);
         return target;
       }
 
+      /**
+       * Read short array from the source buffer.
+       *
+       * @param source byte buffer to read from
+       * @return a new array
+       */
       static short[] spawnShortArray(ByteBuffer source) {
-        short[] array = new short[spawnIntN(source)];
-        source.asShortBuffer().get(array);
-        source.position(source.position() + array.length * Short.BYTES);
+        return spawnShortArray(source, null);
+      }
+
+      /**
+       * Read short array from the source buffer, reusing the given array if its length matches.
+       *
+       * @param source byte buffer to read from
+       * @param reuse array to read into, may be {@code null}
+       * @return the reused array or a new one
+       */
+      static short[] spawnShortArray(ByteBuffer source, short[] reuse) {
+        int length = spawnIntN(source);
+        Views.require(source, length, Short.BYTES);
+        short[] array = reuse != null && reuse.length == length ? reuse : new short[length];
+        Views.get(source, array);
         return array;
       }
     }
+
+    /**
+     * Compressed routines for int and long arrays.
+     *
+     * <p>Each array is stored as its varint length followed by its elements in one of three
+     * encodings: {@link Sorted} arrays as varint differences to their predecessors, {@link Delta}
+     * arrays as ZigZag varint differences, and {@link Packed} arrays as offsets to a per-block
+     * minimum, bit-packed at the width of the largest offset.
+     */
+    interface Compact {
+
+      /**
+       * Write an ascending int array, e.g. a list of ids, as varint differences.
+       *
+       * @param target buffer to write to
+       * @param value the array to be written, sorted in ascending order
+       * @throws IllegalArgumentException if the array isn't sorted, nothing is written then
+       */
+      static ByteBuffer stashSortedIntArray(ByteBuffer target, @Sorted int[] value) {
+        for (int index = 1; index < value.length; index++) {
+          if (value[index] < value[index - 1]) {
+            throw new IllegalArgumentException("@Sorted int array is not sorted at " + index);
+          }
+        }
+        stashIntN(target, value.length);
+        if (value.length > 0) {
+          stashIntZ(target, value[0]);
+        }
+        for (int index = 1; index < value.length; index++) {
+          stashUnsigned(target, (long) value[index] - value[index - 1]);
+        }
+        return target;
+      }
+
+      /**
+       * Read an ascending int array.
+       *
+       * @param source byte buffer to read from
+       * @return int array
+       */
+      static int[] spawnSortedIntArray(ByteBuffer source) {
+        int[] array = new int[spawnLength(source, 1)];
+        if (array.length > 0) {
+          array[0] = spawnIntZ(source);
+        }
+        for (int index = 1; index < array.length; index++) {
+          array[index] = (int) (array[index - 1] + spawnLongN(source));
+        }
+        return array;
+      }
+
+      /**
+       * Write an ascending long array, e.g. a list of ids or timestamps, as varint differences.
+       *
+       * @param target buffer to write to
+       * @param value the array to be written, sorted in ascending order
+       * @throws IllegalArgumentException if the array isn't sorted, nothing is written then
+       */
+      static ByteBuffer stashSortedLongArray(ByteBuffer target, @Sorted long[] value) {
+        for (int index = 1; index < value.length; index++) {
+          if (value[index] < value[index - 1]) {
+            throw new IllegalArgumentException("@Sorted long array is not sorted at " + index);
+          }
+        }
+        stashIntN(target, value.length);
+        if (value.length > 0) {
+          stashLongZ(target, value[0]);
+        }
+        for (int index = 1; index < value.length; index++) {
+          stashUnsigned(target, value[index] - value[index - 1]);
+        }
+        return target;
+      }
+
+      /**
+       * Read an ascending long array.
+       *
+       * @param source byte buffer to read from
+       * @return long array
+       */
+      static long[] spawnSortedLongArray(ByteBuffer source) {
+        long[] array = new long[spawnLength(source, 1)];
+        if (array.length > 0) {
+          array[0] = spawnLongZ(source);
+        }
+        for (int index = 1; index < array.length; index++) {
+          array[index] = array[index - 1] + spawnLongN(source);
+        }
+        return array;
+      }
+
+      /**
+       * Write an int array, e.g. a series of measurements, as ZigZag varint differences.
+       *
+       * @param target buffer to write to
+       * @param value the array to be written
+       */
+      static ByteBuffer stashDeltaIntArray(ByteBuffer target, @Delta int[] value) {
+        stashIntN(target, value.length);
+        int previous = 0;
+        for (int element : value) {
+          stashIntZ(target, element - previous);
+          previous = element;
+        }
+        return target;
+      }
+
+      /**
+       * Read an int array stored as differences.
+       *
+       * @param source byte buffer to read from
+       * @return int array
+       */
+      static int[] spawnDeltaIntArray(ByteBuffer source) {
+        int[] array = new int[spawnLength(source, 1)];
+        int previous = 0;
+        for (int index = 0; index < array.length; index++) {
+          previous += spawnIntZ(source);
+          array[index] = previous;
+        }
+        return array;
+      }
+
+      /**
+       * Write a long array, e.g. a series of measurements, as ZigZag varint differences.
+       *
+       * @param target buffer to write to
+       * @param value the array to be written
+       */
+      static ByteBuffer stashDeltaLongArray(ByteBuffer target, @Delta long[] value) {
+        stashIntN(target, value.length);
+        long previous = 0;
+        for (long element : value) {
+          stashLongZ(target, element - previous);
+          previous = element;
+        }
+        return target;
+      }
+
+      /**
+       * Read a long array stored as differences.
+       *
+       * @param source byte buffer to read from
+       * @return long array
+       */
+      static long[] spawnDeltaLongArray(ByteBuffer source) {
+        long[] array = new long[spawnLength(source, 1)];
+        long previous = 0;
+        for (int index = 0; index < array.length; index++) {
+          previous += spawnLongZ(source);
+          array[index] = previous;
+        }
+        return array;
+      }
+
+      /**
+       * Write an int array of values within a narrow range, bit-packed in blocks of 128.
+       *
+       * @param target buffer to write to
+       * @param value the array to be written
+       */
+      static ByteBuffer stashPackedIntArray(ByteBuffer target, @Packed int[] value) {
+        stashIntN(target, value.length);
+        BitPacking.stash(target, value);
+        return target;
+      }
+
+      /**
+       * Read a bit-packed int array.
+       *
+       * @param source byte buffer to read from
+       * @return int array
+       */
+      static int[] spawnPackedIntArray(ByteBuffer source) {
+        int length = spawnIntN(source);
+        if (BitPacking.minimum(length) > source.remaining()) {
+          throw new BufferUnderflowException();
+        }
+        int[] array = new int[length];
+        BitPacking.spawn(source, array);
+        return array;
+      }
+
+      /**
+       * Write a long array of values within a narrow range, bit-packed in blocks of 128.
+       *
+       * @param target buffer to write to
+       * @param value the array to be written
+       */
+      static ByteBuffer stashPackedLongArray(ByteBuffer target, @Packed long[] value) {
+        stashIntN(target, value.length);
+        BitPacking.stash(target, value);
+        return target;
+      }
+
+      /**
+       * Read a bit-packed long array.
+       *
+       * @param source byte buffer to read from
+       * @return long array
+       */
+      static long[] spawnPackedLongArray(ByteBuffer source) {
+        int length = spawnIntN(source);
+        if (BitPacking.minimum(length) > source.remaining()) {
+          throw new BufferUnderflowException();
+        }
+        long[] array = new long[length];
+        BitPacking.spawn(source, array);
+        return array;
+      }
+
+      // read the length, ensuring the source holds at least that many elements of the given size
+      private static int spawnLength(ByteBuffer source, int bytes) {
+        int length = spawnIntN(source);
+        Views.require(source, length, bytes);
+        return length;
+      }
+    }
   }
 }
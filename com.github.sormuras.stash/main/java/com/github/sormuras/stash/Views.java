@@ -0,0 +1,236 @@
+package com.github.sormuras.stash;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Bulk copies between primitive arrays and byte buffers, in the byte order of the buffer.
+ *
+ * <p>Short arrays are copied element by element using the absolute accessors of the buffer, which
+ * doesn't allocate. Longer arrays are copied through a single view buffer, like {@link
+ * ByteBuffer#asIntBuffer()}, whose bulk transfer outperforms any loop and whose allocation is
+ * negligible compared to the number of bytes copied.
+ */
+final class Views {
+
+  /** Arrays of up to this many bytes are copied without creating a view buffer. */
+  static final int LOOP_BYTES = 128;
+
+  /** Scratch arrays grow up to this many bytes, longer byte sequences get an array of their own. */
+  static final int SCRATCH_BYTES = 8192;
+
+  private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[64]);
+
+  /**
+   * Return an array holding at least the given number of bytes, reused by the current thread.
+   *
+   * <p>The array is only valid until the next call on the same thread, so callers must not let it
+   * escape.
+   */
+  static byte[] scratch(int length) {
+    if (length > SCRATCH_BYTES) {
+      return new byte[length];
+    }
+    byte[] scratch = SCRATCH.get();
+    if (scratch.length < length) {
+      scratch = new byte[Math.min(Math.max(length, 2 * scratch.length), SCRATCH_BYTES)];
+      SCRATCH.set(scratch);
+    }
+    return scratch;
+  }
+
+  /**
+   * Ensure the source buffer holds the given number of elements.
+   *
+   * @throws BufferUnderflowException if there are not enough bytes left
+   */
+  static void require(ByteBuffer source, int length, int bytes) {
+    if ((long) length * bytes > source.remaining()) {
+      throw new BufferUnderflowException();
+    }
+  }
+
+  // absolute index of the first element, after advancing the position over all elements
+  private static int skip(ByteBuffer buffer, int bytes) {
+    int offset = buffer.position();
+    buffer.position(offset + bytes);
+    return offset;
+  }
+
+  static void put(ByteBuffer target, char[] values) {
+    int bytes = values.length * Character.BYTES;
+    if (values.length > LOOP_BYTES / Character.BYTES) {
+      target.asCharBuffer().put(values);
+      target.position(target.position() + bytes);
+      return;
+    }
+    if (bytes > target.remaining()) {
+      throw new BufferOverflowException();
+    }
+    int offset = skip(target, bytes);
+    for (int index = 0; index < values.length; index++) {
+      target.putChar(offset + index * Character.BYTES, values[index]);
+    }
+  }
+
+  static void get(ByteBuffer source, char[] values) {
+    int bytes = values.length * Character.BYTES;
+    if (values.length > LOOP_BYTES / Character.BYTES) {
+      source.asCharBuffer().get(values);
+      source.position(source.position() + bytes);
+      return;
+    }
+    int offset = skip(source, bytes);
+    for (int index = 0; index < values.length; index++) {
+      values[index] = source.getChar(offset + index * Character.BYTES);
+    }
+  }
+
+  static void put(ByteBuffer target, double[] values) {
+    int bytes = values.length * Double.BYTES;
+    if (values.length > LOOP_BYTES / Double.BYTES) {
+      target.asDoubleBuffer().put(values);
+      target.position(target.position() + bytes);
+      return;
+    }
+    if (bytes > target.remaining()) {
+      throw new BufferOverflowException();
+    }
+    int offset = skip(target, bytes);
+    for (int index = 0; index < values.length; index++) {
+      target.putDouble(offset + index * Double.BYTES, values[index]);
+    }
+  }
+
+  static void get(ByteBuffer source, double[] values) {
+    int bytes = values.length * Double.BYTES;
+    if (values.length > LOOP_BYTES / Double.BYTES) {
+      source.asDoubleBuffer().get(values);
+      source.position(source.position() + bytes);
+      return;
+    }
+    int offset = skip(source, bytes);
+    for (int index = 0; index < values.length; index++) {
+      values[index] = source.getDouble(offset + index * Double.BYTES);
+    }
+  }
+
+  static void put(ByteBuffer target, float[] values) {
+    int bytes = values.length * Float.BYTES;
+    if (values.length > LOOP_BYTES / Float.BYTES) {
+      target.asFloatBuffer().put(values);
+      target.position(target.position() + bytes);
+      return;
+    }
+    if (bytes > target.remaining()) {
+      throw new BufferOverflowException();
+    }
+    int offset = skip(target, bytes);
+    for (int index = 0; index < values.length; index++) {
+      target.putFloat(offset + index * Float.BYTES, values[index]);
+    }
+  }
+
+  static void get(ByteBuffer source, float[] values) {
+    int bytes = values.length * Float.BYTES;
+    if (values.length > LOOP_BYTES / Float.BYTES) {
+      source.asFloatBuffer().get(values);
+      source.position(source.position() + bytes);
+      return;
+    }
+    int offset = skip(source, bytes);
+    for (int index = 0; index < values.length; index++) {
+      values[index] = source.getFloat(offset + index * Float.BYTES);
+    }
+  }
+
+  static void put(ByteBuffer target, int[] values) {
+    int bytes = values.length * Integer.BYTES;
+    if (values.length > LOOP_BYTES / Integer.BYTES) {
+      target.asIntBuffer().put(values);
+      target.position(target.position() + bytes);
+      return;
+    }
+    if (bytes > target.remaining()) {
+      throw new BufferOverflowException();
+    }
+    int offset = skip(target, bytes);
+    for (int index = 0; index < values.length; index++) {
+      target.putInt(offset + index * Integer.BYTES, values[index]);
+    }
+  }
+
+  static void get(ByteBuffer source, int[] values) {
+    int bytes = values.length * Integer.BYTES;
+    if (values.length > LOOP_BYTES / Integer.BYTES) {
+      source.asIntBuffer().get(values);
+      source.position(source.position() + bytes);
+      return;
+    }
+    int offset = skip(source, bytes);
+    for (int index = 0; index < values.length; index++) {
+      values[index] = source.getInt(offset + index * Integer.BYTES);
+    }
+  }
+
+  static void put(ByteBuffer target, long[] values) {
+    int bytes = values.length * Long.BYTES;
+    if (values.length > LOOP_BYTES / Long.BYTES) {
+      target.asLongBuffer().put(values);
+      target.position(target.position() + bytes);
+      return;
+    }
+    if (bytes > target.remaining()) {
+      throw new BufferOverflowException();
+    }
+    int offset = skip(target, bytes);
+    for (int index = 0; index < values.length; index++) {
+      target.putLong(offset + index * Long.BYTES, values[index]);
+    }
+  }
+
+  static void get(ByteBuffer source, long[] values) {
+    int bytes = values.length * Long.BYTES;
+    if (values.length > LOOP_BYTES / Long.BYTES) {
+      source.asLongBuffer().get(values);
+      source.position(source.position() + bytes);
+      return;
+    }
+    int offset = skip(source, bytes);
+    for (int index = 0; index < values.length; index++) {
+      values[index] = source.getLong(offset + index * Long.BYTES);
+    }
+  }
+
+  static void put(ByteBuffer target, short[] values) {
+    int bytes = values.length * Short.BYTES;
+    if (values.length > LOOP_BYTES / Short.BYTES) {
+      target.asShortBuffer().put(values);
+      target.position(target.position() + bytes);
+      return;
+    }
+    if (bytes > target.remaining()) {
+      throw new BufferOverflowException();
+    }
+    int offset = skip(target, bytes);
+    for (int index = 0; index < values.length; index++) {
+      target.putShort(offset + index * Short.BYTES, values[index]);
+    }
+  }
+
+  static void get(ByteBuffer source, short[] values) {
+    int bytes = values.length * Short.BYTES;
+    if (values.length > LOOP_BYTES / Short.BYTES) {
+      source.asShortBuffer().get(values);
+      source.position(source.position() + bytes);
+      return;
+    }
+    int offset = skip(source, bytes);
+    for (int index = 0; index < values.length; index++) {
+      values[index] = source.getShort(offset + index * Short.BYTES);
+    }
+  }
+
+  private Views() {}
+}
@@ -8,6 +8,9 @@ import java.lang.annotation.Target;
 /**
  * Volatile method annotation.
  *
+ * <p>Volatile methods are not journaled. The generated guard executes them under its read lock,
+ * while all journaled methods are executed under its write lock.
+ *
  * <p>Usage: {@code @Volatile void fireOnce(Pay load, Other data)}
  */
 @Target(ElementType.METHOD)
@@ -0,0 +1,23 @@
+package com.github.sormuras.stash;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Small integer annotation, the value may be negative.
+ *
+ * <pre>ℤ</pre>
+ *
+ * <p>The value is mapped to a natural number via ZigZag encoding, i.e. {@code 0, -1, 1, -2, 2}
+ * become {@code 0, 1, 2, 3, 4}, and stored as a varint. Values between {@code -64} and {@code 63}
+ * take a single byte.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Integer">Integer</a>
+ * @see Stashable.Buffer#stashIntZ(java.nio.ByteBuffer, int)
+ * @see Stashable.Buffer#stashLongZ(java.nio.ByteBuffer, long)
+ */
+@Target({ElementType.PARAMETER, ElementType.TYPE_USE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Z {}
@@ -2,4 +2,6 @@ module com.github.sormuras.stash {
   exports com.github.sormuras.stash;
 
   requires java.compiler;
+  requires transitive java.management;
+  requires transitive jdk.jfr;
 }
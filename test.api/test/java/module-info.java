@@ -1,4 +1,5 @@
 open /*test*/ module test.api {
   requires com.github.sormuras.stash;
+  requires jdk.management;
   requires org.junit.jupiter;
 }
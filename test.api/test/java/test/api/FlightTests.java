@@ -0,0 +1,64 @@
+package test.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.github.sormuras.stash.Journal;
+import com.github.sormuras.stash.StashCommit;
+import com.github.sormuras.stash.StashFlush;
+import com.github.sormuras.stash.StashReplay;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FlightTests {
+
+  @TempDir Path temp;
+
+  @Test
+  void journalEmitsCommitFlushAndReplayEvents() throws Exception {
+    Path directory = temp.resolve("journal");
+    ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES);
+    try (Journal journal = Journal.open(directory)) {
+      journal.replay(source -> source.getInt());
+      journal.append(entry.clear().putInt(1).flip());
+    }
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable(StashCommit.class).withoutThreshold();
+      recording.enable(StashFlush.class);
+      recording.enable(StashReplay.class);
+      recording.start();
+      try (Journal journal = Journal.open(directory)) {
+        journal.replay(source -> source.getInt());
+        journal.append(entry.clear().putInt(2).flip());
+        journal.append(entry.clear().putInt(3).flip());
+        journal.force();
+      }
+      recording.stop();
+      Path file = temp.resolve("stash.jfr");
+      recording.dump(file);
+      events = RecordingFile.readAllEvents(file);
+    }
+    Map<String, RecordedEvent> last = new HashMap<>();
+    for (RecordedEvent event : events) {
+      last.put(event.getEventType().getName(), event);
+    }
+    RecordedEvent replay = last.get("com.github.sormuras.stash.Replay");
+    assertEquals(1, replay.getLong("entries"));
+    assertEquals("0000000000000000000.stash", replay.getString("segment"));
+    RecordedEvent commit = last.get("com.github.sormuras.stash.Commit");
+    assertEquals(2, commit.getLong("sequence"));
+    assertEquals(Journal.FRAME + Integer.BYTES, commit.getInt("bytes"));
+    RecordedEvent flush = last.get("com.github.sormuras.stash.Flush");
+    assertEquals(3, flush.getLong("durable"));
+    assertEquals(2, flush.getLong("entries"));
+    assertEquals(2 * (Journal.FRAME + Integer.BYTES), flush.getLong("bytes"));
+  }
+}
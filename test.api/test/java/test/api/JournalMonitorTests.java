@@ -0,0 +1,74 @@
+package test.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.sormuras.stash.Journal;
+import com.github.sormuras.stash.JournalMXBean;
+import com.github.sormuras.stash.JournalMonitor;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalMonitorTests {
+
+  private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+  @Test
+  void wrappedJournalExposesBufferUsage() throws Exception {
+    ByteBuffer buffer = ByteBuffer.allocate(Journal.HEADER + 4 * (Journal.FRAME + Integer.BYTES));
+    ObjectName name;
+    try (Journal journal = Journal.wrap(buffer)) {
+      journal.replay(source -> source.getInt());
+      name = JournalMonitor.register(journal, "Wrapped", () -> 0);
+      JournalMXBean bean = JMX.newMXBeanProxy(server, name, JournalMXBean.class);
+      journal.append(ByteBuffer.allocate(Integer.BYTES));
+      journal.append(ByteBuffer.allocate(Integer.BYTES));
+      assertEquals("", bean.getDirectory());
+      assertEquals(2, bean.getCounter());
+      assertEquals(2, bean.getFlushLag());
+      assertEquals(buffer.capacity(), bean.getCapacity());
+      assertEquals(Journal.HEADER + 2 * (Journal.FRAME + Integer.BYTES), bean.getPosition());
+      assertTrue(bean.getFillRatio() > 0.5 && bean.getFillRatio() < 1);
+      bean.force();
+      assertEquals(0, bean.getFlushLag());
+      assertEquals(2L, server.getAttribute(name, "Durable"));
+    }
+    assertFalse(server.isRegistered(name), "closing the journal unregisters its monitor");
+  }
+
+  @Test
+  void directoryJournalTakesSnapshotsOnRequest(@TempDir Path temp) throws Exception {
+    try (Journal journal = Journal.open(temp)) {
+      journal.replay(source -> source.getInt());
+      journal.append(ByteBuffer.allocate(Integer.BYTES));
+      ObjectName name = JournalMonitor.register(journal, "Directory", () -> 1);
+      assertEquals(temp.toString(), server.getAttribute(name, "Directory"));
+      assertEquals(1L, server.invoke(name, "snapshot", null, null));
+      var again = assertThrows(IllegalStateException.class, () -> register(journal));
+      assertTrue(again.getMessage().contains(temp.toString()));
+    }
+  }
+
+  @Test
+  void snapshotWithoutSnapshotterFails() throws Exception {
+    ByteBuffer buffer = ByteBuffer.allocate(Journal.HEADER + Journal.FRAME + Integer.BYTES);
+    try (Journal journal = Journal.wrap(buffer)) {
+      journal.replay(source -> source.getInt());
+      ObjectName name = JournalMonitor.register(journal, "Unsupported", null);
+      JournalMXBean bean = JMX.newMXBeanProxy(server, name, JournalMXBean.class);
+      assertThrows(UnsupportedOperationException.class, bean::snapshot);
+    }
+  }
+
+  private static void register(Journal journal) {
+    JournalMonitor.register(journal, "Directory", () -> 1);
+  }
+}
@@ -0,0 +1,456 @@
+package test.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.sormuras.stash.Durability;
+import com.github.sormuras.stash.Journal;
+import com.github.sormuras.stash.Recovery;
+import com.github.sormuras.stash.Stashable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalTests {
+
+  private static final int FRAMED = Journal.FRAME + Integer.BYTES;
+
+  private static final Journal.Options FOUR_PER_SEGMENT =
+      new Journal.Options(Journal.HEADER + 4 * FRAMED, Integer.BYTES);
+
+  @TempDir Path temp;
+
+  private final ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES);
+  private final List<Integer> values = new ArrayList<>();
+
+  private long append(Journal journal, int value) {
+    return journal.append(entry.clear().putInt(value).flip());
+  }
+
+  private void spawn(ByteBuffer source) {
+    values.add(source.getInt());
+  }
+
+  @Test
+  void wrap() {
+    ByteBuffer buffer = ByteBuffer.allocate(Journal.HEADER + 3 * FRAMED);
+    try (Journal journal = Journal.wrap(buffer)) {
+      assertEquals(0, journal.replay(this::spawn));
+      assertEquals(1, append(journal, 1));
+      assertEquals(2, append(journal, 2));
+      assertEquals(3, append(journal, 3));
+      assertThrows(BufferOverflowException.class, () -> append(journal, 4));
+      assertTrue(journal.sealed().isEmpty());
+    }
+    buffer.flip();
+    try (Journal journal = Journal.wrap(buffer)) {
+      assertEquals(3, journal.replay(this::spawn));
+    }
+    assertEquals(List.of(1, 2, 3), values);
+  }
+
+  @Test
+  void reserveIsBoundedByWrappedBuffer() {
+    ByteBuffer buffer = ByteBuffer.allocate(Journal.HEADER + 2 * FRAMED);
+    try (Journal journal = Journal.wrap(buffer)) {
+      journal.replay(this::spawn);
+      assertEquals(2 * FRAMED - Journal.FRAME, journal.entryCapacity());
+      journal.reserve(Integer.BYTES);
+      assertEquals(1, append(journal, 1));
+      assertEquals(2, append(journal, 2));
+      assertEquals(0, journal.entryCapacity());
+      assertThrows(BufferOverflowException.class, () -> journal.reserve(Integer.BYTES));
+      assertEquals(2, journal.counter());
+    }
+  }
+
+  @Test
+  void appendBeforeReplayFails() {
+    Journal journal = Journal.wrap(ByteBuffer.allocate(100));
+    assertThrows(IllegalStateException.class, () -> append(journal, 1));
+  }
+
+  @Test
+  void openCreatesEmptySegment() throws Exception {
+    Path directory = temp.resolve("empty");
+    try (Journal journal = Journal.open(directory, new Journal.Options(1024, 512))) {
+      assertEquals(0, journal.replay(this::spawn));
+      assertTrue(journal.sealed().isEmpty());
+    }
+    Path segment = directory.resolve("0000000000000000000" + Journal.SEGMENT_EXTENSION);
+    assertEquals(1024, Files.size(segment));
+  }
+
+  @Test
+  void segmentsRollOverAndReplayInOrder() throws Exception {
+    Path directory = temp.resolve("rolling");
+    Journal.Options options = FOUR_PER_SEGMENT;
+    try (Journal journal = Journal.open(directory, options)) {
+      journal.replay(this::spawn);
+      for (int value = 1; value <= 10; value++) {
+        assertEquals(value, append(journal, value));
+      }
+      assertEquals(2, journal.sealed().size());
+    }
+    try (Journal journal = Journal.open(directory, options)) {
+      assertEquals(10, journal.replay(this::spawn));
+      assertEquals(11, append(journal, 11));
+    }
+    assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), values);
+    assertTrue(Files.exists(directory.resolve("0000000000000000004" + Journal.SEGMENT_EXTENSION)));
+    assertTrue(Files.exists(directory.resolve("0000000000000000008" + Journal.SEGMENT_EXTENSION)));
+  }
+
+  @Test
+  void entryExceedingMaximumSizeFails() throws Exception {
+    try (Journal journal = Journal.open(temp.resolve("large"), new Journal.Options(64, 2))) {
+      journal.replay(this::spawn);
+      assertThrows(BufferOverflowException.class, () -> append(journal, 1));
+      assertEquals(0, journal.counter());
+    }
+  }
+
+  @Test
+  void snapshotBoundsReplayAndAllowsTruncation() throws Exception {
+    Path directory = temp.resolve("snapshot");
+    Journal.Options options = FOUR_PER_SEGMENT;
+    try (Journal journal = Journal.open(directory, options)) {
+      Total total = journal.restore(new Total());
+      journal.replay(source -> total.add(source.getInt()));
+      for (int value = 1; value <= 6; value++) {
+        total.add(value);
+        append(journal, value);
+      }
+      assertEquals(6, journal.snapshot(total));
+      assertEquals(6, journal.lastSnapshot());
+      total.add(7);
+      append(journal, 7);
+      assertEquals(2, journal.sealed().size());
+      journal.archive(temp.resolve("archive"));
+      assertTrue(journal.sealed().isEmpty());
+    }
+    assertTrue(Files.exists(temp.resolve("archive/0000000000000000000.stash")));
+    assertTrue(Files.exists(temp.resolve("archive/0000000000000000004.stash")));
+    try (Journal journal = Journal.open(directory, options)) {
+      Total total = journal.restore(new Total());
+      assertEquals(21, total.sum);
+      assertEquals(7, journal.replay(source -> total.add(source.getInt())));
+      assertEquals(28, total.sum);
+      assertEquals(6, journal.lastSnapshot());
+    }
+  }
+
+  @Test
+  void restoreIgnoresSnapshotForNonStashableSystem() throws Exception {
+    try (Journal journal = Journal.open(temp.resolve("plain"))) {
+      Object system = new Object();
+      assertSame(system, journal.restore(system));
+      journal.replay(this::spawn);
+      assertThrows(IllegalArgumentException.class, () -> journal.snapshot(system));
+    }
+  }
+
+  @Test
+  void snapshotOfWrappedBufferIsUnsupported() {
+    Journal journal = Journal.wrap(ByteBuffer.allocate(100));
+    journal.replay(this::spawn);
+    Total total = new Total();
+    assertThrows(UnsupportedOperationException.class, () -> journal.snapshot(total));
+  }
+
+  @Test
+  void invalidOptionsFail() {
+    assertThrows(IllegalArgumentException.class, () -> new Journal.Options(64, 0));
+    assertThrows(IllegalArgumentException.class, () -> new Journal.Options(64, 64));
+    var options = new Journal.Options(1024, 512);
+    assertThrows(IllegalArgumentException.class, () -> options.withCompression(10));
+    assertThrows(IllegalArgumentException.class, () -> Recovery.before(-1));
+  }
+
+  @Test
+  void scanReadsAllEntriesWithoutReplaying() throws Exception {
+    Path directory = temp.resolve("scan");
+    Journal.Options options = FOUR_PER_SEGMENT;
+    try (Journal journal = Journal.open(directory, options)) {
+      Total total = journal.restore(new Total());
+      journal.replay(source -> total.add(source.getInt()));
+      for (int value = 1; value <= 6; value++) {
+        total.add(value);
+        append(journal, value);
+      }
+      journal.snapshot(total);
+      append(journal, 7);
+      assertEquals(7, journal.scan(this::spawn));
+    }
+    assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), values);
+    values.clear();
+    try (Journal journal = Journal.open(directory, options)) {
+      assertEquals(7, journal.scan(this::spawn));
+      assertThrows(IllegalStateException.class, () -> append(journal, 8));
+    }
+    assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), values);
+  }
+
+  @Test
+  void recoveryCutsAtFirstCorruptFrameAndWipesStaleFrames() throws Exception {
+    Path directory = temp.resolve("torn");
+    try (Journal journal = Journal.open(directory, new Journal.Options(1024, 512))) {
+      journal.replay(this::spawn);
+      for (int value = 1; value <= 5; value++) {
+        append(journal, value);
+      }
+    }
+    Path segment = directory.resolve("0000000000000000000" + Journal.SEGMENT_EXTENSION);
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      // flip the entry of the fourth frame, the fifth frame stays valid
+      ByteBuffer torn = ByteBuffer.allocate(Integer.BYTES).putInt(-4).flip();
+      channel.write(torn, Journal.HEADER + 3 * FRAMED + Journal.FRAME);
+    }
+    try (Journal journal = Journal.open(directory, new Journal.Options(1024, 512))) {
+      assertEquals(3, journal.replay(this::spawn));
+      assertEquals(4, append(journal, 4));
+    }
+    values.clear();
+    try (Journal journal = Journal.open(directory, new Journal.Options(1024, 512))) {
+      assertEquals(4, journal.replay(this::spawn));
+    }
+    assertEquals(List.of(1, 2, 3, 4), values);
+    ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(segment));
+    assertEquals(0, header.getLong(0), "entry count is written when a segment is sealed");
+  }
+
+  @Test
+  void sealedSegmentsAreCompressedInBackground() throws Exception {
+    Path directory = temp.resolve("compressed");
+    Journal.Options options = FOUR_PER_SEGMENT.withCompression(Deflater.BEST_SPEED);
+    try (Journal journal = Journal.open(directory, options)) {
+      journal.replay(this::spawn);
+      for (int value = 1; value <= 10; value++) {
+        append(journal, value);
+      }
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (!journal.sealed().stream().allMatch(JournalTests::isCompressed)) {
+        assertTrue(System.nanoTime() < deadline, "sealed segments weren't compressed in time");
+        Thread.sleep(10);
+      }
+      assertEquals(10, journal.scan(this::spawn));
+      assertEquals(6, journal.scan(4, this::spawn));
+    }
+    assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 5, 6, 7, 8, 9, 10), values);
+    assertTrue(Files.notExists(directory.resolve("0000000000000000000.stash")));
+    values.clear();
+    try (Journal journal = Journal.open(directory, FOUR_PER_SEGMENT)) {
+      assertEquals(10, journal.replay(this::spawn));
+      assertEquals(11, append(journal, 11));
+    }
+    assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), values);
+  }
+
+  private static boolean isCompressed(Path path) {
+    return path.getFileName().toString().endsWith(Journal.COMPRESSED_EXTENSION);
+  }
+
+  @Test
+  void sparseIndexSeeksTimeAndScansFromSequence() throws Exception {
+    Path directory = temp.resolve("index");
+    int size = Journal.HEADER + 32 * (Journal.FRAME + TIMED);
+    var options = new Journal.Options(size, TIMED).withIndexInterval(8);
+    ByteBuffer timed = ByteBuffer.allocate(TIMED);
+    try (Journal journal = Journal.open(directory, options)) {
+      journal.replay(this::spawn);
+      for (int value = 1; value <= 100; value++) {
+        journal.append(timed.clear().putInt(value).putLong(value * 10L).flip(), value * 10L);
+      }
+      assertEquals(3, journal.sealed().size());
+      assertIndexed(journal);
+    }
+    assertEquals(3 * Long.BYTES, Files.size(directory.resolve("0000000000000000096.index")));
+    try (var stream = Files.newDirectoryStream(directory, "*.index")) {
+      for (Path index : stream) {
+        Files.delete(index);
+      }
+    }
+    try (Journal journal = Journal.open(directory, options)) {
+      assertEquals(100, journal.replay(JournalTests::skip, JournalTests::time));
+      assertIndexed(journal);
+    }
+    assertTrue(Files.exists(directory.resolve("0000000000000000032.index")));
+  }
+
+  private static final int TIMED = Integer.BYTES + Long.BYTES;
+
+  private static void skip(ByteBuffer source) {
+    source.position(source.position() + TIMED);
+  }
+
+  private static long time(ByteBuffer source) {
+    return source.getLong(source.position() + Integer.BYTES);
+  }
+
+  private void spawnTimed(ByteBuffer source) {
+    spawn(source);
+    source.getLong();
+  }
+
+  private void assertIndexed(Journal journal) {
+    // value 50 is the first entry of time 500 at sequence 49, preceded by the point at 48
+    assertEquals(48, journal.seek(500));
+    assertEquals(0, journal.seek(Long.MIN_VALUE));
+    assertEquals(96, journal.seek(Long.MAX_VALUE));
+    values.clear();
+    assertEquals(51, journal.scan(49, this::spawnTimed));
+    assertEquals(50, values.get(0).intValue());
+    assertEquals(100, values.get(50).intValue());
+    assertThrows(IllegalArgumentException.class, () -> journal.scan(-1, this::spawn));
+  }
+
+  @Test
+  void recoveryTruncatesInPlaceBeforeSequence() throws Exception {
+    Path directory = temp.resolve("truncated");
+    Journal.Options options = FOUR_PER_SEGMENT.withCompression(Deflater.BEST_SPEED);
+    try (Journal journal = Journal.open(directory, options)) {
+      Total total = journal.restore(new Total());
+      journal.replay(source -> total.add(source.getInt()));
+      for (int value = 1; value <= 10; value++) {
+        total.add(value);
+        append(journal, value);
+        if (value == 3 || value == 9) {
+          journal.snapshot(total);
+        }
+      }
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (!journal.sealed().stream().allMatch(JournalTests::isCompressed)) {
+        assertTrue(System.nanoTime() < deadline, "sealed segments weren't compressed in time");
+        Thread.sleep(10);
+      }
+    }
+    try (Journal journal = Journal.open(directory, options.withRecovery(Recovery.before(5)))) {
+      Total total = journal.restore(new Total());
+      assertEquals(3, journal.lastSnapshot());
+      assertEquals(5, journal.replay(source -> total.add(source.getInt())));
+      assertEquals(1 + 2 + 3 + 4 + 5, total.sum);
+      assertEquals(1, journal.sealed().size());
+      assertEquals(6, append(journal, 60));
+    }
+    assertTrue(Files.exists(directory.resolve("0000000000000000003.stash")));
+    assertTrue(Files.notExists(directory.resolve("0000000000000000003.deflate")));
+    assertTrue(Files.notExists(directory.resolve("0000000000000000007.deflate")));
+    assertTrue(Files.notExists(directory.resolve("0000000000000000009.stash")));
+    assertTrue(Files.notExists(directory.resolve("0000000000000000009.snapshot")));
+    try (Journal journal = Journal.open(directory, FOUR_PER_SEGMENT)) {
+      Total total = journal.restore(new Total());
+      assertEquals(6, journal.replay(source -> total.add(source.getInt())));
+      assertEquals(1 + 2 + 3 + 4 + 5 + 60, total.sum);
+    }
+  }
+
+  @Test
+  void recoveryForksUntilInstantAndKeepsOriginal() throws Exception {
+    Path directory = temp.resolve("original");
+    Path fork = temp.resolve("fork");
+    int size = Journal.HEADER + 32 * (Journal.FRAME + TIMED);
+    var options = new Journal.Options(size, TIMED).withIndexInterval(8);
+    ByteBuffer timed = ByteBuffer.allocate(TIMED);
+    try (Journal journal = Journal.open(directory, options)) {
+      journal.replay(this::spawn);
+      for (int value = 1; value <= 100; value++) {
+        journal.append(timed.clear().putInt(value).putLong(value * 10L).flip(), value * 10L);
+      }
+    }
+    var recovery = Recovery.until(Instant.ofEpochMilli(495)).forkTo(fork);
+    try (Journal journal = Journal.open(directory, options.withRecovery(recovery))) {
+      assertEquals(49, journal.replay(this::spawnTimed, JournalTests::time));
+      assertEquals(1, journal.sealed().size());
+      assertEquals(fork, journal.sealed().get(0).getParent());
+    }
+    assertEquals(49, values.size());
+    assertEquals(49, values.get(48).intValue());
+    assertThrows(IOException.class, () -> Journal.open(directory, options.withRecovery(recovery)));
+    try (Journal journal = Journal.open(directory, options)) {
+      assertEquals(100, journal.replay(JournalTests::skip, JournalTests::time));
+    }
+    try (Journal journal = Journal.open(fork, options)) {
+      assertEquals(49, journal.replay(JournalTests::skip, JournalTests::time));
+      assertEquals(48, journal.seek(Long.MAX_VALUE));
+    }
+  }
+
+  @Test
+  void everyCommitIsDurableImmediately() throws Exception {
+    Journal.Options options = Journal.Options.DEFAULT.withDurability(Durability.EVERY_COMMIT);
+    try (Journal journal = Journal.open(temp.resolve("every"), options)) {
+      journal.replay(this::spawn);
+      assertEquals(1, append(journal, 1));
+      assertEquals(1, journal.durable());
+      assertTrue(journal.whenDurable().isDone());
+    }
+  }
+
+  @Test
+  void groupCommitCompletesPendingFutures() throws Exception {
+    Durability durability = Durability.group(Duration.ofMillis(5), 1000);
+    Journal.Options options = Journal.Options.DEFAULT.withDurability(durability);
+    try (Journal journal = Journal.open(temp.resolve("group"), options)) {
+      journal.replay(this::spawn);
+      append(journal, 1);
+      append(journal, 2);
+      CompletableFuture<Long> future = journal.whenDurable();
+      assertEquals(2, future.get(10, TimeUnit.SECONDS).longValue());
+      assertEquals(2, journal.durable());
+    }
+  }
+
+  @Test
+  void noDurabilityCompletesOnExplicitForce() throws Exception {
+    try (Journal journal = Journal.open(temp.resolve("none"))) {
+      journal.replay(this::spawn);
+      append(journal, 1);
+      CompletableFuture<Long> future = journal.whenDurable(1);
+      assertEquals(0, journal.durable());
+      journal.force();
+      assertTrue(future.isDone());
+      assertEquals(1, journal.durable());
+    }
+  }
+
+  @Test
+  void invalidDurabilityFails() {
+    assertThrows(IllegalArgumentException.class, () -> Durability.group(Duration.ZERO, 1));
+    assertThrows(IllegalArgumentException.class, () -> Durability.group(Duration.ofMillis(1), 0));
+  }
+
+  static class Total implements Stashable {
+
+    private long sum;
+
+    Total() {}
+
+    Total(ByteBuffer source) {
+      this.sum = source.getLong();
+    }
+
+    void add(int value) {
+      sum += value;
+    }
+
+    @Override
+    public ByteBuffer stash(ByteBuffer target) {
+      return target.putLong(sum);
+    }
+  }
+}
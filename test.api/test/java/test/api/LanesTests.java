@@ -0,0 +1,108 @@
+package test.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.sormuras.stash.Journal;
+import com.github.sormuras.stash.Lanes;
+import com.github.sormuras.stash.Partitioned;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import org.junit.jupiter.api.Test;
+
+class LanesTests {
+
+  private static final ToLongFunction<ByteBuffer> TIMELESS = source -> Long.MIN_VALUE;
+
+  /** Keeps a list of values per key, a key of -1 clears all lists. */
+  static class Lists implements Partitioned {
+
+    final List<List<Integer>> lists = new ArrayList<>();
+
+    Lists(int keys) {
+      for (int key = 0; key < keys; key++) {
+        lists.add(new ArrayList<>());
+      }
+    }
+
+    @Override
+    public int partitions() {
+      return lists.size();
+    }
+
+    void add(int key, int value) {
+      lists.get(key).add(value);
+    }
+
+    void clear() {
+      lists.forEach(List::clear);
+    }
+
+    void spawn(ByteBuffer source) {
+      int key = source.getInt();
+      int value = source.getInt();
+      if (key < 0) {
+        clear();
+        return;
+      }
+      add(key, value);
+    }
+
+    void fork(Lanes lanes, ByteBuffer source) {
+      int key = source.getInt();
+      int value = source.getInt();
+      if (key < 0) {
+        lanes.await();
+        clear();
+        return;
+      }
+      lanes.execute(key, () -> add(key, value));
+    }
+  }
+
+  private static Journal journal(int keys, int entries) {
+    ByteBuffer buffer = ByteBuffer.allocate(Journal.HEADER + entries * (Journal.FRAME + 8));
+    Journal journal = Journal.wrap(buffer);
+    journal.replay(source -> {});
+    ByteBuffer entry = ByteBuffer.allocate(2 * Integer.BYTES);
+    for (int index = 0; index < entries; index++) {
+      int key = index == entries / 2 ? -1 : index % keys;
+      journal.append(entry.clear().putInt(key).putInt(index).flip());
+    }
+    return Journal.wrap(buffer.flip());
+  }
+
+  @Test
+  void parallelReplayPreservesOrderPerKeyAndHonorsBarriers() {
+    Lists sequential = new Lists(8);
+    assertEquals(1000, journal(8, 1000).replay(sequential::spawn));
+    Lists parallel = new Lists(8);
+    Journal journal = journal(8, 1000);
+    assertEquals(1000, Lanes.replay(journal, parallel, parallel::spawn, TIMELESS, parallel::fork));
+    assertEquals(sequential.lists, parallel.lists);
+    assertEquals(List.of(504, 512, 520), parallel.lists.get(0).subList(0, 3));
+  }
+
+  @Test
+  void singlePartitionReplaysSequentially() {
+    Lists lists = new Lists(1);
+    Lanes.replay(journal(1, 10), lists, lists::spawn, TIMELESS, (lanes, source) -> fail());
+    assertEquals(List.of(6, 7, 8, 9), lists.lists.get(0));
+  }
+
+  @Test
+  void failureOfForkedCallIsRethrown() {
+    try (Lanes lanes = new Lanes(4)) {
+      lanes.execute(1, () -> fail());
+      assertThrows(UnsupportedOperationException.class, lanes::await);
+    } catch (UnsupportedOperationException expected) {
+      // close() rethrows as well
+    }
+  }
+
+  private static void fail() {
+    throw new UnsupportedOperationException();
+  }
+}
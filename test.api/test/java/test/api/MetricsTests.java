@@ -0,0 +1,52 @@
+package test.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.sormuras.stash.Metrics;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+
+class MetricsTests {
+
+  @Test
+  void recordCountsInvocationsBytesAndNanos() {
+    Metrics metrics = new Metrics("store(int)", "total()");
+    metrics.record(0, 8, 100);
+    metrics.record(0, 8, 300);
+    metrics.record(1, 0, 50);
+    Metrics.Method store = metrics.method("store(int)");
+    assertEquals(2, store.invocations());
+    assertEquals(16, store.bytes());
+    assertEquals(400, store.nanos());
+    assertEquals(2, store.latency().count());
+    assertEquals(1, metrics.method("total()").invocations());
+    assertEquals(2, metrics.methods().size());
+    assertThrows(NoSuchElementException.class, () -> metrics.method("store"));
+  }
+
+  @Test
+  void histogramReportsValuesWithinBucketPrecision() {
+    Metrics.Histogram histogram = new Metrics.Histogram();
+    assertEquals(0, histogram.valueAt(0.5));
+    for (long value = 1; value <= 1000; value++) {
+      histogram.record(value);
+    }
+    histogram.record(-1);
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(1002, histogram.count());
+    assertEquals(0, histogram.valueAt(0));
+    assertEquals(7, histogram.valueAt(0.007));
+    assertWithin(500, histogram.valueAt(0.5));
+    assertWithin(990, histogram.valueAt(0.99));
+    assertEquals(Long.MAX_VALUE, histogram.valueAt(1));
+    assertThrows(IllegalArgumentException.class, () -> histogram.valueAt(1.5));
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    long error = expected / Metrics.Histogram.SUB_BUCKETS;
+    String message = expected + " +/- " + error + " expected, but got " + actual;
+    assertTrue(Math.abs(expected - actual) <= error, message);
+  }
+}
@@ -0,0 +1,89 @@
+package test.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.sormuras.stash.Journal;
+import com.github.sormuras.stash.Pipeline;
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class PipelineTests {
+
+  private final List<Integer> applied = new ArrayList<>();
+
+  private Object apply(ByteBuffer command) {
+    int value = command.getInt();
+    applied.add(value);
+    return applied.size();
+  }
+
+  @Test
+  void commandsAreAppliedInSubmissionOrder() throws Exception {
+    List<CompletableFuture<Integer>> futures = new ArrayList<>();
+    try (Pipeline pipeline = new Pipeline(this::apply, 4, Integer.BYTES)) {
+      for (int value = 0; value < 100; value++) {
+        int argument = value;
+        futures.add(pipeline.submit(target -> target.putInt(argument)));
+      }
+      CompletableFuture<Integer> size = pipeline.query(applied::size);
+      assertEquals(100, size.get(10, TimeUnit.SECONDS).intValue());
+    }
+    for (int index = 0; index < futures.size(); index++) {
+      assertEquals(index + 1, futures.get(index).join().intValue());
+      assertEquals(index, applied.get(index).intValue());
+    }
+  }
+
+  @Test
+  void failingEncoderFailsOnlyItsOwnCommand() throws Exception {
+    try (Pipeline pipeline = new Pipeline(this::apply, 2, Integer.BYTES)) {
+      CompletableFuture<Integer> failed = pipeline.submit(target -> target.putLong(1L));
+      CompletableFuture<Integer> next = pipeline.submit(target -> target.putInt(2));
+      assertEquals(1, next.get(10, TimeUnit.SECONDS).intValue());
+      ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+      assertTrue(e.getCause() instanceof BufferOverflowException);
+    }
+    assertEquals(List.of(2), applied);
+  }
+
+  @Test
+  void defaultOptionsDontPreallocateEntrySizedSlots() throws Exception {
+    int entrySize = Journal.Options.DEFAULT.entrySize();
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(thread);
+    try (Pipeline pipeline = new Pipeline(this::apply, Pipeline.DEFAULT_CAPACITY, entrySize)) {
+      long allocated = threads.getThreadAllocatedBytes(thread) - before;
+      assertTrue(allocated < entrySize, "creating the pipeline allocated " + allocated + " bytes");
+      // slots grow on demand
+      byte[] payload = new byte[9999];
+      CompletableFuture<Integer> large = pipeline.submit(target -> target.putInt(1).put(payload));
+      CompletableFuture<Integer> small = pipeline.submit(target -> target.putInt(2));
+      assertEquals(2, small.get(10, TimeUnit.SECONDS).intValue());
+      assertEquals(1, large.join().intValue());
+    }
+    assertEquals(List.of(1, 2), applied);
+  }
+
+  @Test
+  void closedPipelineRejectsCommands() {
+    Pipeline pipeline = new Pipeline(this::apply, 2, Integer.BYTES);
+    pipeline.close();
+    assertThrows(IllegalStateException.class, () -> pipeline.submit(target -> target.putInt(1)));
+  }
+
+  @Test
+  void capacityMustBeAPowerOfTwo() {
+    assertThrows(IllegalArgumentException.class, () -> new Pipeline(this::apply, 3, 4));
+  }
+}
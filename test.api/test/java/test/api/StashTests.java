@@ -1,5 +1,6 @@
 package test.api;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -21,5 +22,7 @@ class StashTests {
     assertNotNull(annotation);
     assertSame(Object.class, annotation.classExtends());
     assertTrue(annotation.verify());
+    assertFalse(annotation.metrics());
+    assertFalse(annotation.monitor());
   }
 }
@@ -14,21 +14,29 @@ import static com.github.sormuras.stash.Stashable.Buffer.View.stashLongArray;
 import static com.github.sormuras.stash.Stashable.Buffer.View.stashShortArray;
 import static com.github.sormuras.stash.Stashable.Buffer.spawnAny;
 import static com.github.sormuras.stash.Stashable.Buffer.spawnBoolean;
+import static com.github.sormuras.stash.Stashable.Buffer.spawnBooleanArray;
 import static com.github.sormuras.stash.Stashable.Buffer.spawnEnum;
 import static com.github.sormuras.stash.Stashable.Buffer.spawnIntN;
+import static com.github.sormuras.stash.Stashable.Buffer.spawnIntZ;
 import static com.github.sormuras.stash.Stashable.Buffer.spawnLongN;
+import static com.github.sormuras.stash.Stashable.Buffer.spawnLongZ;
 import static com.github.sormuras.stash.Stashable.Buffer.spawnString;
 import static com.github.sormuras.stash.Stashable.Buffer.stashAny;
 import static com.github.sormuras.stash.Stashable.Buffer.stashBoolean;
+import static com.github.sormuras.stash.Stashable.Buffer.stashBooleanArray;
 import static com.github.sormuras.stash.Stashable.Buffer.stashByteArray;
+import static com.github.sormuras.stash.Stashable.Buffer.stashCharSequence;
 import static com.github.sormuras.stash.Stashable.Buffer.stashEnum;
 import static com.github.sormuras.stash.Stashable.Buffer.stashIntN;
+import static com.github.sormuras.stash.Stashable.Buffer.stashIntZ;
 import static com.github.sormuras.stash.Stashable.Buffer.stashLongN;
+import static com.github.sormuras.stash.Stashable.Buffer.stashLongZ;
 import static com.github.sormuras.stash.Stashable.Buffer.stashString;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -38,8 +46,13 @@ import java.io.NotSerializableException;
 import java.io.ObjectStreamConstants;
 import java.io.StreamCorruptedException;
 import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -108,6 +121,31 @@ class StashableBufferTests {
     assertTrue(spawnBoolean(buffer));
   }
 
+  @Test
+  void testStashBooleanArray() {
+    assertEquals(1, testStashBooleanArray(new boolean[0]));
+    assertEquals(2, testStashBooleanArray(new boolean[] {true}));
+    assertEquals(2, testStashBooleanArray(new boolean[] {true, false, true, true, true}));
+    assertEquals(2, testStashBooleanArray(new boolean[8]));
+    assertEquals(3, testStashBooleanArray(new boolean[9]));
+    boolean[] large = new boolean[1000];
+    for (int index = 0; index < large.length; index += 3) {
+      large[index] = true;
+    }
+    assertEquals(2 + 125, testStashBooleanArray(large));
+    buffer.clear();
+    stashBooleanArray(buffer, new boolean[] {true, false, true});
+    assertEquals(0b101, buffer.get(1));
+  }
+
+  private int testStashBooleanArray(boolean[] expected) {
+    buffer.clear();
+    stashBooleanArray(buffer, expected);
+    buffer.flip();
+    assertArrayEquals(expected, spawnBooleanArray(buffer));
+    return buffer.position();
+  }
+
   @Test
   void testStashEnum() {
     stashEnum(buffer, TimeUnit.DAYS);
@@ -182,6 +220,54 @@ class StashableBufferTests {
     return buffer.position();
   }
 
+  @Test
+  void testStashIntZ() {
+    assertEquals(1, testStashIntZ(0));
+    assertEquals(1, testStashIntZ(-1));
+    assertEquals(1, testStashIntZ(1));
+    assertEquals(1, testStashIntZ(-64));
+    assertEquals(1, testStashIntZ(63));
+    assertEquals(2, testStashIntZ(-65));
+    assertEquals(2, testStashIntZ(64));
+    assertEquals(2, testStashIntZ(-8192));
+    assertEquals(3, testStashIntZ(8192));
+    assertEquals(5, testStashIntZ(Integer.MIN_VALUE));
+    assertEquals(5, testStashIntZ(Integer.MAX_VALUE));
+    buffer.clear();
+    stashIntZ(buffer, -2);
+    assertEquals(3, buffer.get(0));
+  }
+
+  private int testStashIntZ(int probe) {
+    buffer.clear();
+    stashIntZ(buffer, probe);
+    buffer.flip();
+    assertEquals(probe, spawnIntZ(buffer));
+    return buffer.position();
+  }
+
+  @Test
+  void testStashLongZ() {
+    assertEquals(1, testStashLongZ(0));
+    assertEquals(1, testStashLongZ(-1));
+    assertEquals(1, testStashLongZ(-64));
+    assertEquals(2, testStashLongZ(64));
+    assertEquals(5, testStashLongZ(Integer.MIN_VALUE));
+    assertEquals(5, testStashLongZ(Integer.MAX_VALUE));
+    assertEquals(9, testStashLongZ(-(1L << 62)));
+    assertEquals(10, testStashLongZ(1L << 62));
+    assertEquals(10, testStashLongZ(Long.MIN_VALUE));
+    assertEquals(10, testStashLongZ(Long.MAX_VALUE));
+  }
+
+  private int testStashLongZ(long expected) {
+    buffer.clear();
+    stashLongZ(buffer, expected);
+    buffer.flip();
+    assertEquals(expected, spawnLongZ(buffer));
+    return buffer.position();
+  }
+
   @Test
   void testStashNullEnum() {
     assertThrows(NullPointerException.class, () -> stashEnum(buffer, null));
@@ -202,6 +288,69 @@ class StashableBufferTests {
     assertEquals(string, actual);
   }
 
+  @Test
+  void testStashNullString() {
+    stashString(buffer, null);
+    stashCharSequence(buffer, null);
+    stashString(buffer, null, StandardCharsets.UTF_16);
+    stashString(buffer, "");
+    buffer.flip();
+    assertNull(spawnString(buffer));
+    assertNull(spawnString(buffer));
+    assertNull(spawnString(buffer, StandardCharsets.UTF_16));
+    assertEquals("", spawnString(buffer));
+    assertFalse(buffer.hasRemaining());
+  }
+
+  @Test
+  void testStashCharSequence() {
+    testStashCharSequence("");
+    testStashCharSequence("ASCII only");
+    testStashCharSequence("\u007F\u0080\u07FF\u0800\uFFFF äöü €");
+    testStashCharSequence("\uD83D\uDE00 is a surrogate pair");
+    testStashCharSequence("lone \uD83D high and \uDE00 low surrogates\uD83D");
+    testStashCharSequence("x".repeat(200) + "\u00FF");
+  }
+
+  private void testStashCharSequence(String string) {
+    byte[] expected = string.getBytes(StandardCharsets.UTF_8);
+    stashCharSequence(buffer.clear(), new StringBuilder(string));
+    buffer.flip();
+    assertEquals(expected.length, spawnIntN(buffer));
+    byte[] actual = new byte[buffer.remaining()];
+    buffer.get(actual);
+    assertArrayEquals(expected, actual);
+    stashString(buffer.clear(), string);
+    assertEquals(new String(expected, StandardCharsets.UTF_8), spawnString(buffer.flip()));
+  }
+
+  @Test
+  void testSpawnStringFromSliceAndDirectBuffer() {
+    String string = "\tABC.xyz╝¢¥║¬░▒▓│»";
+    ByteBuffer slice = buffer.position(7).slice();
+    stashString(slice, string);
+    assertEquals(string, spawnString(slice.flip()));
+    assertFalse(slice.hasRemaining());
+    ByteBuffer direct = ByteBuffer.allocateDirect(100);
+    stashString(direct, string);
+    assertEquals(string, spawnString(direct.flip()));
+    assertThrows(BufferUnderflowException.class, () -> spawnString(slice.rewind().limit(9)));
+  }
+
+  @Test
+  void testSpawnStringsOfGrowingLengthFromDirectBuffer() {
+    ByteBuffer direct = ByteBuffer.allocateDirect(40_000);
+    List<String> strings = List.of("a", "ä".repeat(100), "b".repeat(5000), "c", "ü".repeat(9000));
+    strings.forEach(string -> stashString(direct, string));
+    direct.flip();
+    for (String string : strings) {
+      assertEquals(string, spawnString(direct));
+    }
+    assertFalse(direct.hasRemaining());
+    stashString(direct.clear(), "stash");
+    assertThrows(BufferUnderflowException.class, () -> spawnString(direct.flip().limit(3)));
+  }
+
   @Test
   void testStashViewCharArray() {
     char[] expected = {'\0', 'a', 'Ω', Character.MAX_VALUE, Character.MIN_VALUE};
@@ -261,4 +410,58 @@ class StashableBufferTests {
     assertNotSame(expected, actual);
     assertArrayEquals(expected, actual);
   }
+
+  @Test
+  void testStashViewMatchesBufferOrder() {
+    long[] large = new long[100];
+    for (int index = 0; index < large.length; index++) {
+      large[index] = index * 31L - 1;
+    }
+    for (ByteOrder order : List.of(ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN)) {
+      for (ByteBuffer target : List.of(ByteBuffer.allocate(999), ByteBuffer.allocateDirect(999))) {
+        target.order(order);
+        stashLongArray(stashIntArray(target, new int[] {1, -2}), new long[] {3, Long.MIN_VALUE});
+        assertEquals(1 + 2 * Integer.BYTES + 1 + 2 * Long.BYTES, target.position());
+        assertEquals(1, target.getInt(1));
+        assertEquals(-2, target.getInt(5));
+        assertEquals(3, target.getLong(10));
+        assertEquals(Long.MIN_VALUE, target.getLong(18));
+        stashLongArray(target, large);
+        assertEquals(26 + 1 + large.length * Long.BYTES, target.position());
+        assertEquals(large[99], target.getLong(27 + 99 * Long.BYTES));
+        target.flip();
+        assertArrayEquals(new int[] {1, -2}, spawnIntArray(target));
+        assertArrayEquals(new long[] {3, Long.MIN_VALUE}, spawnLongArray(target));
+        assertArrayEquals(large, spawnLongArray(target));
+        assertFalse(target.hasRemaining());
+      }
+    }
+  }
+
+  @Test
+  void testSpawnViewArrayReuse() {
+    int[] reuse = new int[3];
+    stashIntArray(buffer, new int[] {4, 7, 11});
+    stashIntArray(buffer, new int[] {4, 7});
+    buffer.flip();
+    assertSame(reuse, spawnIntArray(buffer, reuse));
+    assertArrayEquals(new int[] {4, 7, 11}, reuse);
+    int[] other = spawnIntArray(buffer, reuse);
+    assertNotSame(reuse, other);
+    assertArrayEquals(new int[] {4, 7}, other);
+    buffer.rewind();
+    assertArrayEquals(reuse, spawnIntArray(buffer, null));
+  }
+
+  @Test
+  void testStashViewBounds() {
+    ByteBuffer small = ByteBuffer.allocate(8);
+    assertThrows(BufferOverflowException.class, () -> stashLongArray(small, new long[1]));
+    assertThrows(BufferOverflowException.class, () -> stashLongArray(small, new long[99]));
+    ByteBuffer readOnly = ByteBuffer.allocate(8).asReadOnlyBuffer();
+    assertThrows(ReadOnlyBufferException.class, () -> stashIntArray(readOnly, new int[0]));
+    stashIntN(buffer, Integer.MAX_VALUE);
+    buffer.flip();
+    assertThrows(BufferUnderflowException.class, () -> spawnLongArray(buffer));
+  }
 }
@@ -0,0 +1,185 @@
+package test.api;
+
+import static com.github.sormuras.stash.Stashable.Buffer.Compact.spawnDeltaIntArray;
+import static com.github.sormuras.stash.Stashable.Buffer.Compact.spawnDeltaLongArray;
+import static com.github.sormuras.stash.Stashable.Buffer.Compact.spawnPackedIntArray;
+import static com.github.sormuras.stash.Stashable.Buffer.Compact.spawnPackedLongArray;
+import static com.github.sormuras.stash.Stashable.Buffer.Compact.spawnSortedIntArray;
+import static com.github.sormuras.stash.Stashable.Buffer.Compact.spawnSortedLongArray;
+import static com.github.sormuras.stash.Stashable.Buffer.Compact.stashDeltaIntArray;
+import static com.github.sormuras.stash.Stashable.Buffer.Compact.stashDeltaLongArray;
+import static com.github.sormuras.stash.Stashable.Buffer.Compact.stashPackedIntArray;
+import static com.github.sormuras.stash.Stashable.Buffer.Compact.stashPackedLongArray;
+import static com.github.sormuras.stash.Stashable.Buffer.Compact.stashSortedIntArray;
+import static com.github.sormuras.stash.Stashable.Buffer.Compact.stashSortedLongArray;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StashableCompactTests {
+
+  private final ByteBuffer buffer = ByteBuffer.allocate(20_000);
+
+  @BeforeEach
+  void before() {
+    buffer.clear();
+  }
+
+  @Test
+  void testSortedIntArray() {
+    int[] ids = new int[1000];
+    for (int index = 0; index < ids.length; index++) {
+      ids[index] = 4711 + index * 3;
+    }
+    assertEquals(2 + 2 + 999, sorted(ids));
+    assertEquals(1, sorted(new int[0]));
+    assertEquals(1 + 5 + 5, sorted(new int[] {Integer.MIN_VALUE, Integer.MAX_VALUE}));
+    assertEquals(1 + 1 + 1 + 1, sorted(new int[] {-1, -1, 0}));
+    buffer.clear();
+    int[] unsorted = {2, 1};
+    assertThrows(IllegalArgumentException.class, () -> stashSortedIntArray(buffer, unsorted));
+    assertEquals(0, buffer.position());
+  }
+
+  @Test
+  void testSortedLongArray() {
+    long[] times = new long[1000];
+    for (int index = 0; index < times.length; index++) {
+      times[index] = 1_600_000_000_000L + index * 100;
+    }
+    assertEquals(2 + 6 + 999, sorted(times));
+    assertEquals(1 + 10 + 10, sorted(new long[] {Long.MIN_VALUE, Long.MAX_VALUE}));
+    buffer.clear();
+    long[] unsorted = {0, -1};
+    assertThrows(IllegalArgumentException.class, () -> stashSortedLongArray(buffer, unsorted));
+    assertEquals(0, buffer.position());
+  }
+
+  @Test
+  void testDeltaIntArray() {
+    Random random = new Random(123);
+    int[] series = new int[1000];
+    for (int index = 1; index < series.length; index++) {
+      series[index] = series[index - 1] + random.nextInt(127) - 63;
+    }
+    assertEquals(2 + 1000, delta(series));
+    int[] extremes = {Integer.MAX_VALUE, Integer.MIN_VALUE, 0, Integer.MIN_VALUE, -1};
+    assertEquals(1 + 5 + 1 + 5 + 5 + 5, delta(extremes));
+  }
+
+  @Test
+  void testDeltaLongArray() {
+    Random random = new Random(123);
+    long[] series = new long[1000];
+    series[0] = 1L << 40;
+    for (int index = 1; index < series.length; index++) {
+      series[index] = series[index - 1] + random.nextInt(127) - 63;
+    }
+    assertEquals(2 + 6 + 999, delta(series));
+    long[] extremes = {Long.MAX_VALUE, Long.MIN_VALUE, 0, Long.MIN_VALUE, -1};
+    assertEquals(1 + 10 + 1 + 10 + 10 + 10, delta(extremes));
+  }
+
+  @Test
+  void testPackedIntArray() {
+    assertEquals(1, packed(new int[0]));
+    assertEquals(1 + 2 + 1, packed(new int[] {-4711}));
+    assertEquals(2 + 3 * 2, packed(new int[300]));
+    int[] narrow = new int[1000];
+    for (int index = 0; index < narrow.length; index++) {
+      narrow[index] = 1000 + index % 16;
+    }
+    // seven full blocks and one of 104 values, each with 2 bytes minimum and 4 bits per value
+    assertEquals(2 + 7 * (3 + 64) + (3 + 52), packed(narrow));
+    Random random = new Random(123);
+    for (int length : new int[] {1, 7, 127, 128, 129, 1000}) {
+      int[] values = new int[length];
+      for (int index = 0; index < length; index++) {
+        values[index] = random.nextInt();
+      }
+      packed(values);
+    }
+    int[] extremes = {Integer.MAX_VALUE, Integer.MIN_VALUE, 0, -1, 1};
+    assertEquals(1 + 5 + 1 + 5 * 4, packed(extremes));
+  }
+
+  @Test
+  void testPackedLongArray() {
+    assertEquals(1, packed(new long[0]));
+    Random random = new Random(123);
+    for (int width = 0; width <= 64; width++) {
+      long[] values = new long[200];
+      for (int index = 0; index < values.length; index++) {
+        long bits = width == 64 ? random.nextLong() : random.nextLong() & (1L << width) - 1;
+        values[index] = Long.MIN_VALUE + bits;
+      }
+      packed(values);
+    }
+    long[] extremes = {Long.MAX_VALUE, Long.MIN_VALUE, 0, -1, 1};
+    assertEquals(1 + 10 + 1 + 5 * 8, packed(extremes));
+  }
+
+  @Test
+  void testPackedArrayUnderflow() {
+    stashPackedLongArray(buffer, new long[] {1, 2, 3, 4, 5});
+    buffer.flip().limit(buffer.limit() - 1);
+    assertThrows(BufferUnderflowException.class, () -> spawnPackedLongArray(buffer));
+    buffer.clear().put((byte) 0x7F).flip();
+    assertThrows(BufferUnderflowException.class, () -> spawnPackedIntArray(buffer));
+  }
+
+  private int sorted(int[] expected) {
+    stashSortedIntArray(buffer.clear(), expected);
+    int bytes = buffer.flip().limit();
+    assertArrayEquals(expected, spawnSortedIntArray(buffer));
+    assertFalse(buffer.hasRemaining());
+    return bytes;
+  }
+
+  private int sorted(long[] expected) {
+    stashSortedLongArray(buffer.clear(), expected);
+    int bytes = buffer.flip().limit();
+    assertArrayEquals(expected, spawnSortedLongArray(buffer));
+    assertFalse(buffer.hasRemaining());
+    return bytes;
+  }
+
+  private int delta(int[] expected) {
+    stashDeltaIntArray(buffer.clear(), expected);
+    int bytes = buffer.flip().limit();
+    assertArrayEquals(expected, spawnDeltaIntArray(buffer));
+    assertFalse(buffer.hasRemaining());
+    return bytes;
+  }
+
+  private int delta(long[] expected) {
+    stashDeltaLongArray(buffer.clear(), expected);
+    int bytes = buffer.flip().limit();
+    assertArrayEquals(expected, spawnDeltaLongArray(buffer));
+    assertFalse(buffer.hasRemaining());
+    return bytes;
+  }
+
+  private int packed(int[] expected) {
+    stashPackedIntArray(buffer.clear(), expected);
+    int bytes = buffer.flip().limit();
+    assertArrayEquals(expected, spawnPackedIntArray(buffer));
+    assertFalse(buffer.hasRemaining());
+    return bytes;
+  }
+
+  private int packed(long[] expected) {
+    stashPackedLongArray(buffer.clear(), expected);
+    int bytes = buffer.flip().limit();
+    assertArrayEquals(expected, spawnPackedLongArray(buffer));
+    assertFalse(buffer.hasRemaining());
+    return bytes;
+  }
+}
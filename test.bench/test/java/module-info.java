@@ -0,0 +1,6 @@
+open /*test*/ module test.bench {
+  requires com.github.sormuras.stash;
+  requires jdk.management;
+  requires jmh.core;
+  requires org.junit.jupiter;
+}
@@ -0,0 +1,46 @@
+package test.bench;
+
+import com.github.sormuras.stash.Key;
+import com.github.sormuras.stash.Partitioned;
+import com.github.sormuras.stash.Stash;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Deposits keyed by account and an unkeyed audit, generating parallel replay code. */
+@Stash
+public interface Accounts {
+
+  void deposit(@Key int account, int amount);
+
+  void audit();
+
+  /** Prevalent system recording deposits per account and deposit counts per audit. */
+  class Impl implements Accounts, Partitioned {
+
+    private final int partitions;
+    final List<List<Integer>> deposits = new ArrayList<>();
+    final List<Integer> audits = new ArrayList<>();
+
+    public Impl(int accounts, int partitions) {
+      this.partitions = partitions;
+      for (int account = 0; account < accounts; account++) {
+        deposits.add(new ArrayList<>());
+      }
+    }
+
+    @Override
+    public int partitions() {
+      return partitions;
+    }
+
+    @Override
+    public void deposit(int account, int amount) {
+      deposits.get(account).add(amount);
+    }
+
+    @Override
+    public void audit() {
+      audits.add(deposits.stream().mapToInt(List::size).sum());
+    }
+  }
+}
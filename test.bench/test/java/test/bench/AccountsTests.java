@@ -0,0 +1,35 @@
+package test.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Parallel replay of keyed calls through the stash generated for {@link Accounts}. */
+class AccountsTests {
+
+  @Test
+  void parallelReplayMatchesSequentialReplay(@TempDir Path temp) throws Exception {
+    Path path = temp.resolve("accounts");
+    Accounts.Impl impl = new Accounts.Impl(8, 1);
+    AccountsStash accounts = AccountsStash.open(impl, path);
+    for (int amount = 1; amount <= 10_000; amount++) {
+      accounts.deposit(amount * 31 % 8, amount);
+      if (amount % 1000 == 0) {
+        accounts.audit();
+      }
+    }
+    accounts.journal().close();
+
+    Accounts.Impl sequential = new Accounts.Impl(8, 1);
+    AccountsStash.open(sequential, path).journal().close();
+    assertEquals(impl.deposits, sequential.deposits);
+    assertEquals(impl.audits, sequential.audits);
+
+    Accounts.Impl parallel = new Accounts.Impl(8, 4);
+    AccountsStash.open(parallel, path).journal().close();
+    assertEquals(sequential.deposits, parallel.deposits);
+    assertEquals(sequential.audits, parallel.audits);
+  }
+}
@@ -0,0 +1,17 @@
+package test.bench;
+
+import com.github.sormuras.stash.Stash;
+import java.util.UUID;
+
+/** Journaled methods covering enums, primitives, strings and the UUID stashlet. */
+@Stash
+public interface All {
+
+  default void enums(Thread.State state) {}
+
+  default void primitives(boolean flag, int number, long time, double value) {}
+
+  default void string(String string) {}
+
+  default void uuid(UUID uuid) {}
+}
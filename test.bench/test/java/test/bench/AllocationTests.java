@@ -0,0 +1,177 @@
+package test.bench;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.sormuras.stash.Journal;
+import com.github.sormuras.stash.Stashable.Buffer.View;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Allocation budgets of journaled calls and their replay, per kind of stashlet.
+ *
+ * <p>Budgets are given in bytes per call or per replayed entry. A budget only covers objects the
+ * parameter type requires, like the boxed value or the {@link UUID} instance handed to the
+ * prevalent system. Raising a budget needs a reason.
+ *
+ * <p>Budgets are the greatest values measured on a 64-bit HotSpot JDK 17 with compressed object
+ * pointers and the G1, Serial and Parallel collectors. Whether the C2 compiler eliminates the
+ * allocation of an ignored argument varies from run to run, budgets cover the allocating case.
+ * Other object layouts, like uncompressed pointers, and the granularity of thread allocation
+ * accounting shift these numbers, so measured values may exceed a budget by up to {@link
+ * #HEADROOM} percent. A budget of zero has no headroom: such calls must not allocate at all.
+ */
+class AllocationTests {
+
+  private static final int ENTRIES = 10_000;
+
+  /** Percentage a measured value may exceed its budget by. */
+  private static final int HEADROOM = 50;
+
+  /** Size of the direct buffers backing the measured stashes, large enough for all entries. */
+  private static final int JOURNAL_SIZE = 8 << 20;
+
+  private static final Stashlets IGNORE = new Stashlets() {};
+
+  @Test
+  void primitive() {
+    assertBudget(0, 0, stashlets -> stashlets.primitive(4711));
+  }
+
+  @Test
+  void boxed() {
+    // the argument is boxed by the caller, the verified call spawns another box
+    assertBudget(32, 16, stashlets -> stashlets.boxed(4711));
+  }
+
+  @Test
+  void natural() {
+    assertBudget(0, 0, stashlets -> stashlets.natural(4711));
+  }
+
+  @Test
+  void integer() {
+    assertBudget(0, 0, stashlets -> stashlets.integer(-4711));
+  }
+
+  @Test
+  void bool() {
+    assertBudget(0, 0, stashlets -> stashlets.bool(true));
+  }
+
+  @Test
+  void enumeration() {
+    assertBudget(0, 0, stashlets -> stashlets.enumeration(Thread.State.RUNNABLE));
+  }
+
+  @Test
+  void uuid() {
+    UUID uuid = UUID.randomUUID();
+    assertBudget(32, 32, stashlets -> stashlets.uuid(uuid));
+  }
+
+  @Test
+  void stashable() {
+    Point point = new Point(3, 4);
+    assertBudget(24, 24, stashlets -> stashlets.stashable(point));
+  }
+
+  @Test
+  void string() {
+    // the spawned string, bytes of the direct buffer are copied into a reused array
+    assertBudget(48, 48, stashlets -> stashlets.string("stash"));
+  }
+
+  @Test
+  void sequence() {
+    StringBuilder builder = new StringBuilder("stash");
+    // encoded without calling toString(), spawned as a string
+    assertBudget(48, 48, stashlets -> stashlets.sequence(builder));
+  }
+
+  @Test
+  void ints() {
+    int[] values = new int[16];
+    // the verified call spawns a copy of the array
+    assertBudget(80, 80, stashlets -> stashlets.ints(values));
+  }
+
+  @Test
+  void flags() {
+    boolean[] flags = new boolean[16];
+    // the verified call spawns a copy of the array
+    assertBudget(32, 32, stashlets -> stashlets.flags(flags));
+  }
+
+  @Test
+  void sorted() {
+    long[] ids = {4, 7, 11, 4711, 1 << 20};
+    // the verified call spawns a copy of the array
+    assertBudget(56, 56, stashlets -> stashlets.sorted(ids));
+  }
+
+  @Test
+  void packed() {
+    int[] values = new int[200];
+    // the verified call spawns a copy of the array
+    assertBudget(816, 816, stashlets -> stashlets.packed(values));
+  }
+
+  @Test
+  void any() {
+    Duration duration = Duration.ofSeconds(47, 11);
+    // object streams and their buffers, serializing on call and on verification
+    assertBudget(5568, 2872, stashlets -> stashlets.any(duration));
+  }
+
+  @Test
+  void views() {
+    for (ByteBuffer buffer : List.of(ByteBuffer.allocate(8192), ByteBuffer.allocateDirect(8192))) {
+      // up to 128 bytes are copied element by element
+      assertViewBudget(0, buffer, new int[32]);
+      // longer arrays are copied through a single view buffer
+      assertViewBudget(64, buffer, new int[1024]);
+    }
+  }
+
+  private static void assertViewBudget(long budget, ByteBuffer buffer, int[] values) {
+    int[] reuse = new int[values.length];
+    long stash = Allocations.perCall(() -> View.stashIntArray(buffer.clear(), values));
+    assertWithin(budget, stash, "stashing");
+    long spawn = Allocations.perCall(() -> View.spawnIntArray(buffer.rewind(), reuse));
+    assertWithin(budget, spawn, "spawning");
+  }
+
+  private static void assertBudget(long call, long replay, Consumer<Stashlets> method) {
+    StashletsStash stash = new StashletsStash(IGNORE, ByteBuffer.allocateDirect(JOURNAL_SIZE));
+    assertWithin(call, Allocations.perCall(() -> method.accept(stash)), "call");
+    assertWithin(replay, replay(method), "replay");
+  }
+
+  private static void assertWithin(long budget, long bytes, String what) {
+    long limit = budget + budget * HEADROOM / 100;
+    assertTrue(bytes <= limit, what + " allocates " + bytes + " bytes, budget is " + budget);
+  }
+
+  // average bytes allocated per entry replayed, excluding the cost of creating the stash
+  private static long replay(Consumer<Stashlets> method) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(JOURNAL_SIZE);
+    StashletsStash stash = new StashletsStash(IGNORE, buffer);
+    for (int entry = 0; entry < ENTRIES; entry++) {
+      method.accept(stash);
+    }
+    // same room left as in the full buffer, so both stashes allocate equal staging buffers
+    ByteBuffer empty = ByteBuffer.allocateDirect(JOURNAL_SIZE - buffer.position() + Journal.HEADER);
+    Runnable full = () -> new StashletsStash(IGNORE, buffer.duplicate().clear());
+    Runnable none = () -> new StashletsStash(IGNORE, empty.duplicate());
+    for (int warmup = 0; warmup < 5; warmup++) {
+      full.run();
+      none.run();
+    }
+    return (Allocations.measure(full) - Allocations.measure(none)) / ENTRIES;
+  }
+}
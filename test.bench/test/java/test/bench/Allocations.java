@@ -0,0 +1,40 @@
+package test.bench;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+
+/** Heap allocation of the current thread, as reported by its {@link ThreadMXBean}. */
+final class Allocations {
+
+  /** Number of calls preceding a measurement, letting the JIT compiler kick in. */
+  static final int WARMUP = 20_000;
+
+  /** Number of measured calls, the average is reported. */
+  static final int CALLS = 10_000;
+
+  private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  /** {@return bytes allocated by the current thread while running the given code} */
+  static long measure(Runnable runnable) {
+    long thread = Thread.currentThread().getId();
+    long before = THREADS.getThreadAllocatedBytes(thread);
+    runnable.run();
+    return THREADS.getThreadAllocatedBytes(thread) - before;
+  }
+
+  /** {@return average bytes allocated per call, measured after warming up} */
+  static long perCall(Runnable call) {
+    for (int index = 0; index < WARMUP; index++) {
+      call.run();
+    }
+    return measure(
+            () -> {
+              for (int index = 0; index < CALLS; index++) {
+                call.run();
+              }
+            })
+        / CALLS;
+  }
+
+  private Allocations() {}
+}
@@ -0,0 +1,62 @@
+package test.bench;
+
+import com.github.sormuras.stash.Stashable.Buffer;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measure the fallback for arbitrary objects, using Java serialization. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnyBenchmarks {
+
+  @Param public Kind kind;
+
+  @Param({"BIG_ENDIAN", "LITTLE_ENDIAN"})
+  public String order;
+
+  /** Object to store, an {@code integer}, a {@code string} or a {@code list} of integers. */
+  @Param({"integer", "string", "list"})
+  public String object;
+
+  private Object value;
+  private ByteBuffer buffer;
+
+  @Setup
+  public void setup() {
+    value =
+        switch (object) {
+          case "integer" -> 4711;
+          case "string" -> "The quick brown fox jumps over the lazy dog";
+          case "list" -> List.of(1, 2, 3, 5, 8, 13, 21, 34, 55, 89);
+          default -> throw new IllegalArgumentException("unknown object: " + object);
+        };
+    buffer = kind.allocate(1 << 12, order);
+    Buffer.stashAny(buffer, value);
+  }
+
+  @Benchmark
+  public ByteBuffer stashAny() {
+    return Buffer.stashAny(buffer.clear(), value);
+  }
+
+  @Benchmark
+  public Object spawnAny() {
+    return Buffer.spawnAny(buffer.rewind());
+  }
+}
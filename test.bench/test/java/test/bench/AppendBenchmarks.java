@@ -0,0 +1,96 @@
+package test.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure journaled calls of generated stashes, shared by all benchmark threads via their guards.
+ *
+ * <p>Comparing {@link #demo()} and {@link #unverified()} yields the cost of verification code,
+ * comparing {@link #demo()} and {@link #metered()} the cost of recording metrics.
+ * Every iteration appends to fresh journal directories.
+ *
+ * @see Main
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AppendBenchmarks {
+
+  private static final UUID ID = UUID.randomUUID();
+
+  private Path directory;
+  private DemoStash demoStash;
+  private UnverifiedStash unverifiedStash;
+  private MeteredStash meteredStash;
+  private AllStash allStash;
+  private Demo demo;
+  private Unverified unverified;
+  private Metered metered;
+  private All all;
+
+  @Setup(Level.Iteration)
+  public void open() throws IOException {
+    directory = Files.createTempDirectory("stash-append-");
+    demoStash = DemoStash.open(new Demo.Impl(), directory.resolve("demo"));
+    unverifiedStash = UnverifiedStash.open(new Demo.Impl(), directory.resolve("unverified"));
+    meteredStash = MeteredStash.open(new Demo.Impl(), directory.resolve("metered"));
+    allStash = AllStash.open(new All() {}, directory.resolve("all"));
+    demo = new DemoGuard(demoStash);
+    unverified = new UnverifiedGuard(unverifiedStash);
+    metered = new MeteredGuard(meteredStash);
+    all = new AllGuard(allStash);
+  }
+
+  @TearDown(Level.Iteration)
+  public void close() throws IOException {
+    demoStash.journal().close();
+    unverifiedStash.journal().close();
+    meteredStash.journal().close();
+    allStash.journal().close();
+    Directories.delete(directory);
+  }
+
+  @Benchmark
+  public int demo() {
+    return demo.store(1);
+  }
+
+  @Benchmark
+  public int unverified() {
+    return unverified.store(1);
+  }
+
+  @Benchmark
+  public int metered() {
+    return metered.store(1);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(4)
+  public void all() {
+    all.enums(Thread.State.RUNNABLE);
+    all.primitives(true, 4711, 1234567890123L, Math.PI);
+    all.string("stash");
+    all.uuid(ID);
+  }
+}
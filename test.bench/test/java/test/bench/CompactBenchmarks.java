@@ -0,0 +1,104 @@
+package test.bench;
+
+import com.github.sormuras.stash.Stashable.Buffer.Compact;
+import com.github.sormuras.stash.Stashable.Buffer.View;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure the compressed long array codecs against the fixed-width view routines.
+ *
+ * <p>The array holds ascending timestamps less than 100 milliseconds apart. Stored with fixed width
+ * it takes 8 KB. Sorted it takes 1.0 KB, delta encoded 1.4 KB and bit-packed 1.7 KB.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompactBenchmarks {
+
+  @Param public Kind kind;
+
+  @Param({"1024"})
+  public int length;
+
+  private long[] times;
+
+  private ByteBuffer viewBuffer;
+  private ByteBuffer sortedBuffer;
+  private ByteBuffer deltaBuffer;
+  private ByteBuffer packedBuffer;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(length);
+    times = new long[length];
+    times[0] = 1_600_000_000_000L;
+    for (int index = 1; index < length; index++) {
+      times[index] = times[index - 1] + random.nextInt(100);
+    }
+    viewBuffer = View.stashLongArray(buffer(), times);
+    sortedBuffer = Compact.stashSortedLongArray(buffer(), times);
+    deltaBuffer = Compact.stashDeltaLongArray(buffer(), times);
+    packedBuffer = Compact.stashPackedLongArray(buffer(), times);
+  }
+
+  // room for the length prefix and the largest encoding
+  private ByteBuffer buffer() {
+    return kind.allocate(5 + length * 10, "BIG_ENDIAN");
+  }
+
+  @Benchmark
+  public ByteBuffer stashView() {
+    return View.stashLongArray(viewBuffer.clear(), times);
+  }
+
+  @Benchmark
+  public long[] spawnView() {
+    return View.spawnLongArray(viewBuffer.rewind());
+  }
+
+  @Benchmark
+  public ByteBuffer stashSorted() {
+    return Compact.stashSortedLongArray(sortedBuffer.clear(), times);
+  }
+
+  @Benchmark
+  public long[] spawnSorted() {
+    return Compact.spawnSortedLongArray(sortedBuffer.rewind());
+  }
+
+  @Benchmark
+  public ByteBuffer stashDelta() {
+    return Compact.stashDeltaLongArray(deltaBuffer.clear(), times);
+  }
+
+  @Benchmark
+  public long[] spawnDelta() {
+    return Compact.spawnDeltaLongArray(deltaBuffer.rewind());
+  }
+
+  @Benchmark
+  public ByteBuffer stashPacked() {
+    return Compact.stashPackedLongArray(packedBuffer.clear(), times);
+  }
+
+  @Benchmark
+  public long[] spawnPacked() {
+    return Compact.spawnPackedLongArray(packedBuffer.rewind());
+  }
+}
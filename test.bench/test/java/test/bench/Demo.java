@@ -0,0 +1,26 @@
+package test.bench;
+
+import com.github.sormuras.stash.Stash;
+
+/** Single journaled method with a small payload, generating stash/spawn verification code. */
+@Stash
+public interface Demo {
+
+  int store(int value);
+
+  /** Prevalent system summing all stored values. */
+  class Impl implements Demo, Metered, Unverified {
+
+    private int sum;
+
+    @Override
+    public int store(int value) {
+      return sum += value;
+    }
+
+    @Override
+    public String toString() {
+      return "sum = " + sum;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package test.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.sormuras.stash.Journal;
+import com.github.sormuras.stash.Metrics;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Calls through the stash and its front-ends generated for {@link Demo}. */
+class DemoTests {
+
+  @Test
+  void fullJournalFailsBeforeCallingTheSystem() {
+    int entry = Journal.FRAME + Integer.BYTES + Integer.BYTES; // frame + hash + value
+    Demo.Impl impl = new Demo.Impl();
+    DemoStash stash = new DemoStash(impl, ByteBuffer.allocate(Journal.HEADER + 2 * entry));
+    stash.store(1);
+    stash.store(2);
+    assertThrows(BufferOverflowException.class, () -> stash.store(3));
+    assertEquals("sum = 3", impl.toString());
+    assertEquals(2, stash.journal().counter());
+  }
+
+  @Test
+  void guard() throws Exception {
+    DemoStash stash = new DemoStash(new Demo.Impl(), ByteBuffer.allocate(100_000));
+    Demo guard = new DemoGuard(stash);
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> IntStream.range(0, 1000).forEach(value -> guard.store(1)));
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(4000, stash.journal().counter());
+    assertEquals("sum = 4000", guard.toString());
+  }
+
+  @Test
+  void async() throws Exception {
+    DemoStash stash = new DemoStash(new Demo.Impl(), ByteBuffer.allocate(1000));
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      DemoAsync async = new DemoAsyncGuard(stash, executor);
+      CompletableFuture.allOf(async.store(1), async.store(1), async.store(1)).join();
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(3, stash.journal().counter());
+    assertEquals("sum = 3", stash.toString());
+  }
+
+  @Test
+  void pipeline() throws Exception {
+    DemoStash stash = new DemoStash(new Demo.Impl(), ByteBuffer.allocate(1000));
+    try (DemoPipeline pipeline = new DemoPipeline(stash, 8)) {
+      pipeline.store(1);
+      pipeline.store(2);
+      assertEquals(6, pipeline.store(3).get().intValue());
+    }
+    assertEquals(3, stash.journal().counter());
+    assertEquals("sum = 6", stash.toString());
+  }
+
+  @Test
+  void fullJournalFailsPipelinedCallBeforeCallingTheSystem() throws Exception {
+    int entry = Journal.FRAME + Integer.BYTES + Integer.BYTES; // frame + hash + value
+    Demo.Impl impl = new Demo.Impl();
+    DemoStash stash = new DemoStash(impl, ByteBuffer.allocate(Journal.HEADER + 2 * entry));
+    try (DemoPipeline pipeline = new DemoPipeline(stash, 8)) {
+      pipeline.store(1);
+      assertEquals(3, pipeline.store(2).get().intValue());
+      ExecutionException e = assertThrows(ExecutionException.class, () -> pipeline.store(3).get());
+      assertTrue(e.getCause() instanceof BufferOverflowException, e.getCause().toString());
+    }
+    assertEquals("sum = 3", impl.toString());
+    assertEquals(2, stash.journal().counter());
+  }
+
+  @Test
+  void metrics() {
+    MeteredStash stash = new MeteredStash(new Demo.Impl(), ByteBuffer.allocate(1000));
+    stash.store(1);
+    stash.store(2);
+    Metrics.Method store = stash.metrics().method("store(int)");
+    assertEquals(2, store.invocations());
+    assertEquals(2 * (Integer.BYTES + Integer.BYTES), store.bytes());
+    assertEquals(2, store.latency().count());
+  }
+
+  @Test
+  void visit(@TempDir Path temp) throws Exception {
+    Path path = temp.resolve("demo");
+    DemoStash demo = DemoStash.open(new Demo.Impl(), path);
+    demo.store(1);
+    demo.store(2);
+    demo.journal().close();
+
+    List<Integer> values = new ArrayList<>();
+    DemoVisitor visitor =
+        new DemoVisitor() {
+          @Override
+          public void store(int value) {
+            values.add(value);
+          }
+        };
+    try (Journal journal = Journal.open(path)) {
+      assertEquals(2, DemoIO.scan(journal, visitor));
+      assertEquals(2, journal.scan(DemoIO::skip));
+    }
+    assertEquals(List.of(1, 2), values);
+  }
+}
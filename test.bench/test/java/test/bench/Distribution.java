@@ -0,0 +1,57 @@
+package test.bench;
+
+import java.util.Random;
+
+/** Distribution of non-negative values, determining the size of their varint encoding. */
+public enum Distribution {
+  /** Values encoded in a single byte. */
+  SMALL {
+    @Override
+    long next(Random random, int bits) {
+      return random.nextInt(1 << 7);
+    }
+  },
+  /** Values encoded in the maximum number of bytes. */
+  LARGE {
+    @Override
+    long next(Random random, int bits) {
+      return ((1L << bits) - 1) ^ random.nextInt(1 << 7);
+    }
+  },
+  /** Values with a uniformly distributed bit length, thus mixing all encoded sizes. */
+  RANDOM {
+    @Override
+    long next(Random random, int bits) {
+      return random.nextLong() >>> (Long.SIZE - 1 - random.nextInt(bits));
+    }
+  };
+
+  /**
+   * Create the next value.
+   *
+   * @param random source of randomness
+   * @param bits number of value bits, {@code 31} for int and {@code 63} for long values
+   * @return a value between {@code 0} and {@code 2^bits - 1}
+   */
+  abstract long next(Random random, int bits);
+
+  /** {@return an array of int values, the same for each call} */
+  int[] ints(int length) {
+    Random random = new Random(length);
+    int[] values = new int[length];
+    for (int index = 0; index < length; index++) {
+      values[index] = (int) next(random, Integer.SIZE - 1);
+    }
+    return values;
+  }
+
+  /** {@return an array of long values, the same for each call} */
+  long[] longs(int length) {
+    Random random = new Random(length);
+    long[] values = new long[length];
+    for (int index = 0; index < length; index++) {
+      values[index] = next(random, Long.SIZE - 1);
+    }
+    return values;
+  }
+}
@@ -0,0 +1,35 @@
+package test.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/** Kind of byte buffer to benchmark. */
+public enum Kind {
+  /** Buffer backed by a byte array. */
+  HEAP,
+  /** Buffer allocated outside of the garbage-collected heap. */
+  DIRECT;
+
+  /**
+   * Allocate a new buffer of this kind.
+   *
+   * @param capacity the capacity in bytes
+   * @param order name of the byte order, either {@code BIG_ENDIAN} or {@code LITTLE_ENDIAN}
+   * @return the new buffer
+   */
+  public ByteBuffer allocate(int capacity, String order) {
+    ByteBuffer buffer =
+        this == HEAP ? ByteBuffer.allocate(capacity) : ByteBuffer.allocateDirect(capacity);
+    return buffer.order(order(order));
+  }
+
+  static ByteOrder order(String name) {
+    if (name.equals(ByteOrder.BIG_ENDIAN.toString())) {
+      return ByteOrder.BIG_ENDIAN;
+    }
+    if (name.equals(ByteOrder.LITTLE_ENDIAN.toString())) {
+      return ByteOrder.LITTLE_ENDIAN;
+    }
+    throw new IllegalArgumentException("unknown byte order: " + name);
+  }
+}
@@ -0,0 +1,41 @@
+package test.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the end-to-end benchmarks of generated stashes, writing one JSON result file per run.
+ *
+ * <p>Append benchmarks run with 1, 2, 4, ... threads up to the number of available processors,
+ * followed by the replay benchmarks. Usage: {@code java -cp <class path> test.bench.Main [dir]}
+ */
+public final class Main {
+
+  public static void main(String... args) throws Exception {
+    Path directory = Path.of(args.length == 0 ? "bench" : args[0]);
+    Files.createDirectories(directory);
+    int processors = Runtime.getRuntime().availableProcessors();
+    for (int threads = 1; threads < processors * 2; threads *= 2) {
+      int count = Math.min(threads, processors);
+      run(AppendBenchmarks.class, count, directory.resolve("append-" + count + ".json"));
+    }
+    run(ReplayBenchmarks.class, 1, directory.resolve("replay.json"));
+  }
+
+  private static void run(Class<?> benchmarks, int threads, Path result) throws Exception {
+    Options options =
+        new OptionsBuilder()
+            .include(benchmarks.getName())
+            .threads(threads)
+            .resultFormat(ResultFormatType.JSON)
+            .result(result.toString())
+            .build();
+    new Runner(options).run();
+  }
+
+  private Main() {}
+}
@@ -0,0 +1,10 @@
+package test.bench;
+
+import com.github.sormuras.stash.Stash;
+
+/** Same as {@link Demo}, but recording per-method metrics. */
+@Stash(metrics = true)
+public interface Metered {
+
+  int store(int value);
+}
@@ -0,0 +1,17 @@
+package test.bench;
+
+import com.github.sormuras.stash.Stashable;
+import java.nio.ByteBuffer;
+
+/** Stashable value handled by the generated stash itself. */
+public record Point(int x, int y) implements Stashable {
+
+  public Point(ByteBuffer source) {
+    this(source.getInt(), source.getInt());
+  }
+
+  @Override
+  public ByteBuffer stash(ByteBuffer target) {
+    return target.putInt(x).putInt(y);
+  }
+}
@@ -0,0 +1,83 @@
+package test.bench;
+
+import com.github.sormuras.stash.Journal;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure opening a generated stash on an existing journal, replaying all of its entries.
+ *
+ * <p>Every invocation replays the entire journal. Secondary results {@code entries} and {@code
+ * bytes} report the replay speed in entries and bytes, frames included, per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ReplayBenchmarks {
+
+  @Param({"1000000", "10000000", "100000000"})
+  public long entries;
+
+  private Path directory;
+  private long bytes;
+
+  /** Replay speed, normalized by JMH to values per second. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Speed {
+
+    public long entries;
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      entries = 0;
+      bytes = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void write() throws IOException {
+    directory = Files.createTempDirectory("stash-replay-");
+    DemoStash stash = DemoStash.open(new Demo.Impl(), directory);
+    for (long entry = 0; entry < entries; entry++) {
+      stash.store(1);
+    }
+    stash.journal().close();
+    bytes = entries * (Journal.FRAME + Integer.BYTES + Integer.BYTES); // frame + hash + value
+  }
+
+  @TearDown(Level.Trial)
+  public void delete() throws IOException {
+    Directories.delete(directory);
+  }
+
+  @Benchmark
+  public long replay(Speed speed) throws IOException {
+    DemoStash stash = DemoStash.open(new Demo.Impl(), directory);
+    long counter = stash.journal().counter();
+    stash.journal().close();
+    speed.entries += counter;
+    speed.bytes += bytes;
+    return counter;
+  }
+}
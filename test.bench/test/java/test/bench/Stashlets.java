@@ -0,0 +1,44 @@
+package test.bench;
+
+import com.github.sormuras.stash.N;
+import com.github.sormuras.stash.Packed;
+import com.github.sormuras.stash.Sorted;
+import com.github.sormuras.stash.Stash;
+import com.github.sormuras.stash.Z;
+import java.time.Duration;
+import java.util.UUID;
+
+/** One journaled method per kind of stashlet, each with a single parameter. */
+@Stash
+public interface Stashlets {
+
+  default void primitive(int value) {}
+
+  default void boxed(Integer value) {}
+
+  default void natural(@N int value) {}
+
+  default void integer(@Z long value) {}
+
+  default void bool(boolean value) {}
+
+  default void enumeration(Thread.State state) {}
+
+  default void uuid(UUID uuid) {}
+
+  default void stashable(Point point) {}
+
+  default void string(String string) {}
+
+  default void sequence(CharSequence sequence) {}
+
+  default void ints(int[] values) {}
+
+  default void flags(boolean[] flags) {}
+
+  default void sorted(@Sorted long[] ids) {}
+
+  default void packed(@Packed int[] values) {}
+
+  default void any(Duration duration) {}
+}
@@ -0,0 +1,47 @@
+package test.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.github.sormuras.stash.Journal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Round trips of journaled calls through the generated stash. */
+class StashletsTests {
+
+  private static class Strings implements Stashlets {
+
+    final List<String> strings = new ArrayList<>();
+
+    @Override
+    public void string(String string) {
+      strings.add(string);
+    }
+
+    @Override
+    public void sequence(CharSequence sequence) {
+      strings.add(sequence == null ? null : sequence.toString());
+    }
+  }
+
+  @Test
+  void nullStringsAreJournaledAndReplayed() {
+    List<String> expected = Arrays.asList("a", null, null, "ä");
+    ByteBuffer buffer = ByteBuffer.allocate(1000);
+    Strings strings = new Strings();
+    Stashlets stash = new StashletsStash(strings, Journal.wrap(buffer));
+    stash.string("a");
+    stash.string(null);
+    stash.sequence(null);
+    stash.sequence(new StringBuilder("ä"));
+    assertEquals(expected, strings.strings);
+
+    buffer.flip();
+    Strings replayed = new Strings();
+    new StashletsStash(replayed, Journal.wrap(buffer));
+    assertEquals(expected, replayed.strings);
+  }
+}
@@ -0,0 +1,77 @@
+package test.bench;
+
+import com.github.sormuras.stash.Stashable.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measure storing strings as UTF-8 encoded bytes prefixed by their length. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringBenchmarks {
+
+  @Param public Kind kind;
+
+  @Param({"BIG_ENDIAN", "LITTLE_ENDIAN"})
+  public String order;
+
+  @Param({"8", "128", "4096"})
+  public int length;
+
+  /** Characters to pick from, {@code ascii} or {@code mixed} with multi-byte characters. */
+  @Param({"ascii", "mixed"})
+  public String alphabet;
+
+  private String string;
+  private StringBuilder sequence;
+  private ByteBuffer buffer;
+
+  @Setup
+  public void setup() {
+    String chars = "abcdefghijklmnopqrstuvwxyz0123456789";
+    if (alphabet.equals("mixed")) {
+      chars += "äöüß€αβγ";
+    }
+    Random random = new Random(length);
+    StringBuilder builder = new StringBuilder(length);
+    for (int index = 0; index < length; index++) {
+      builder.append(chars.charAt(random.nextInt(chars.length())));
+    }
+    string = builder.toString();
+    sequence = builder;
+    int size = string.getBytes(StandardCharsets.UTF_8).length;
+    buffer = kind.allocate(size + 5, order);
+    Buffer.stashString(buffer, string);
+  }
+
+  @Benchmark
+  public ByteBuffer stashString() {
+    return Buffer.stashString(buffer.clear(), string);
+  }
+
+  @Benchmark
+  public ByteBuffer stashCharSequence() {
+    return Buffer.stashCharSequence(buffer.clear(), sequence);
+  }
+
+  @Benchmark
+  public String spawnString() {
+    return Buffer.spawnString(buffer.rewind());
+  }
+}
@@ -0,0 +1,10 @@
+package test.bench;
+
+import com.github.sormuras.stash.Stash;
+
+/** Same as {@link Demo}, but without stash/spawn verification code. */
+@Stash(verify = false)
+public interface Unverified {
+
+  int store(int value);
+}
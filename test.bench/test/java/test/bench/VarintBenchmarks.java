@@ -0,0 +1,89 @@
+package test.bench;
+
+import com.github.sormuras.stash.Stashable.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Measure variable-length encoding of positive int and long values, per value. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(VarintBenchmarks.VALUES)
+public class VarintBenchmarks {
+
+  static final int VALUES = 1024;
+
+  @Param public Kind kind;
+
+  @Param({"BIG_ENDIAN", "LITTLE_ENDIAN"})
+  public String order;
+
+  @Param public Distribution distribution;
+
+  private int[] ints;
+  private long[] longs;
+  private ByteBuffer intBuffer;
+  private ByteBuffer longBuffer;
+
+  @Setup
+  public void setup() {
+    ints = distribution.ints(VALUES);
+    longs = distribution.longs(VALUES);
+    intBuffer = kind.allocate(VALUES * 5, order);
+    longBuffer = kind.allocate(VALUES * 9, order);
+    for (int index = 0; index < VALUES; index++) {
+      Buffer.stashIntN(intBuffer, ints[index]);
+      Buffer.stashLongN(longBuffer, longs[index]);
+    }
+  }
+
+  @Benchmark
+  public ByteBuffer stashIntN() {
+    ByteBuffer target = intBuffer.clear();
+    for (int value : ints) {
+      Buffer.stashIntN(target, value);
+    }
+    return target;
+  }
+
+  @Benchmark
+  public void spawnIntN(Blackhole blackhole) {
+    ByteBuffer source = intBuffer.rewind();
+    for (int index = 0; index < VALUES; index++) {
+      blackhole.consume(Buffer.spawnIntN(source));
+    }
+  }
+
+  @Benchmark
+  public ByteBuffer stashLongN() {
+    ByteBuffer target = longBuffer.clear();
+    for (long value : longs) {
+      Buffer.stashLongN(target, value);
+    }
+    return target;
+  }
+
+  @Benchmark
+  public void spawnLongN(Blackhole blackhole) {
+    ByteBuffer source = longBuffer.rewind();
+    for (int index = 0; index < VALUES; index++) {
+      blackhole.consume(Buffer.spawnLongN(source));
+    }
+  }
+}
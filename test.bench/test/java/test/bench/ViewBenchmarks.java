@@ -0,0 +1,169 @@
+package test.bench;
+
+import com.github.sormuras.stash.Stashable.Buffer.View;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measure storing primitive arrays in bulk, spawning into new and into reused arrays. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewBenchmarks {
+
+  @Param public Kind kind;
+
+  @Param({"BIG_ENDIAN", "LITTLE_ENDIAN"})
+  public String order;
+
+  @Param({"16", "1024"})
+  public int length;
+
+  private char[] chars;
+  private double[] doubles;
+  private float[] floats;
+  private int[] ints;
+  private long[] longs;
+  private short[] shorts;
+
+  private ByteBuffer charBuffer;
+  private ByteBuffer doubleBuffer;
+  private ByteBuffer floatBuffer;
+  private ByteBuffer intBuffer;
+  private ByteBuffer longBuffer;
+  private ByteBuffer shortBuffer;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(length);
+    chars = new char[length];
+    doubles = new double[length];
+    floats = new float[length];
+    ints = new int[length];
+    longs = new long[length];
+    shorts = new short[length];
+    for (int index = 0; index < length; index++) {
+      chars[index] = (char) random.nextInt(Character.MAX_VALUE + 1);
+      doubles[index] = random.nextDouble();
+      floats[index] = random.nextFloat();
+      ints[index] = random.nextInt();
+      longs[index] = random.nextLong();
+      shorts[index] = (short) random.nextInt();
+    }
+    charBuffer = View.stashCharArray(buffer(Character.BYTES), chars);
+    doubleBuffer = View.stashDoubleArray(buffer(Double.BYTES), doubles);
+    floatBuffer = View.stashFloatArray(buffer(Float.BYTES), floats);
+    intBuffer = View.stashIntArray(buffer(Integer.BYTES), ints);
+    longBuffer = View.stashLongArray(buffer(Long.BYTES), longs);
+    shortBuffer = View.stashShortArray(buffer(Short.BYTES), shorts);
+  }
+
+  // room for the length prefix and all elements
+  private ByteBuffer buffer(int bytes) {
+    return kind.allocate(5 + length * bytes, order);
+  }
+
+  @Benchmark
+  public ByteBuffer stashCharArray() {
+    return View.stashCharArray(charBuffer.clear(), chars);
+  }
+
+  @Benchmark
+  public char[] spawnCharArray() {
+    return View.spawnCharArray(charBuffer.rewind());
+  }
+
+  @Benchmark
+  public char[] spawnCharArrayReuse() {
+    return View.spawnCharArray(charBuffer.rewind(), chars);
+  }
+
+  @Benchmark
+  public ByteBuffer stashDoubleArray() {
+    return View.stashDoubleArray(doubleBuffer.clear(), doubles);
+  }
+
+  @Benchmark
+  public double[] spawnDoubleArray() {
+    return View.spawnDoubleArray(doubleBuffer.rewind());
+  }
+
+  @Benchmark
+  public double[] spawnDoubleArrayReuse() {
+    return View.spawnDoubleArray(doubleBuffer.rewind(), doubles);
+  }
+
+  @Benchmark
+  public ByteBuffer stashFloatArray() {
+    return View.stashFloatArray(floatBuffer.clear(), floats);
+  }
+
+  @Benchmark
+  public float[] spawnFloatArray() {
+    return View.spawnFloatArray(floatBuffer.rewind());
+  }
+
+  @Benchmark
+  public float[] spawnFloatArrayReuse() {
+    return View.spawnFloatArray(floatBuffer.rewind(), floats);
+  }
+
+  @Benchmark
+  public ByteBuffer stashIntArray() {
+    return View.stashIntArray(intBuffer.clear(), ints);
+  }
+
+  @Benchmark
+  public int[] spawnIntArray() {
+    return View.spawnIntArray(intBuffer.rewind());
+  }
+
+  @Benchmark
+  public int[] spawnIntArrayReuse() {
+    return View.spawnIntArray(intBuffer.rewind(), ints);
+  }
+
+  @Benchmark
+  public ByteBuffer stashLongArray() {
+    return View.stashLongArray(longBuffer.clear(), longs);
+  }
+
+  @Benchmark
+  public long[] spawnLongArray() {
+    return View.spawnLongArray(longBuffer.rewind());
+  }
+
+  @Benchmark
+  public long[] spawnLongArrayReuse() {
+    return View.spawnLongArray(longBuffer.rewind(), longs);
+  }
+
+  @Benchmark
+  public ByteBuffer stashShortArray() {
+    return View.stashShortArray(shortBuffer.clear(), shorts);
+  }
+
+  @Benchmark
+  public short[] spawnShortArray() {
+    return View.spawnShortArray(shortBuffer.rewind());
+  }
+
+  @Benchmark
+  public short[] spawnShortArrayReuse() {
+    return View.spawnShortArray(shortBuffer.rewind(), shorts);
+  }
+}
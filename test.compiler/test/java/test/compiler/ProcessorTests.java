@@ -1,6 +1,7 @@
 package test.compiler;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import com.github.sormuras.beethoven.type.Type;
@@ -31,7 +32,7 @@ class ProcessorTests {
     Class<?> interfaceClass = unit.compile();
     assertEquals(interfaceName, interfaceClass.getCanonicalName());
     ClassLoader loader = interfaceClass.getClassLoader();
-    // assertEquals(interfaceName + "Guard", loader.loadClass(interfaceName + "Guard").getName());
+    assertEquals(interfaceName + "Guard", loader.loadClass(interfaceName + "Guard").getName());
     assertEquals(interfaceName + "Stash", loader.loadClass(interfaceName + "Stash").getName());
     try {
       assertEquals(interfaceName + "IO", loader.loadClass(interfaceName + "IO").getName());
@@ -55,7 +56,7 @@ class ProcessorTests {
     InterfaceDeclaration single = unit.declareInterface("Single");
     single.addAnnotation(Stash.class);
     single.addInterface(Type.type(Runnable.class));
-    assertCompiles(unit, false); // no parameter, no io
+    assertCompiles(unit); // io decodes journaled run()
   }
 
   @Test
@@ -78,6 +79,19 @@ class ProcessorTests {
     assertCompiles(unit);
   }
 
+  @Test
+  void enumPropertyInterfaceWithStashAnnotationCompiles() throws ClassNotFoundException {
+    CompilationUnit unit = CompilationUnit.of("enumeration");
+    InterfaceDeclaration states = unit.declareInterface("States");
+    states.addAnnotation(Stash.class);
+    states.declareMethod(void.class, "setState").declareParameter(Thread.State.class, "state");
+    assertCompiles(unit);
+
+    ClassLoader loader = unit.compile().getClassLoader();
+    int modifiers = loader.loadClass("enumeration.StatesValues").getModifiers();
+    assertFalse(java.lang.reflect.Modifier.isPublic(modifiers)); // cached constants stay private
+  }
+
   @Test
   void uuidPropertyInterfaceWithStashAnnotationCompiles() throws ClassNotFoundException {
     CompilationUnit unit = CompilationUnit.of("service");
@@ -2,6 +2,7 @@ package demo;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import com.github.sormuras.stash.Journal;
 import java.nio.ByteBuffer;
 import java.util.Date;
 import java.util.UUID;
@@ -16,7 +17,7 @@ class AllTests implements All {
     long start = buffer.position();
     all.date(new Date());
     long actual = buffer.position() - start;
-    assertEquals(4 + 8, actual); // int + long
+    assertEquals(Journal.FRAME + 4 + 8, actual); // frame + int + long
   }
 
   @Test
@@ -26,6 +27,6 @@ class AllTests implements All {
     long start = buffer.position();
     all.uuid(UUID.randomUUID());
     long actual = buffer.position() - start;
-    assertEquals(4 + 8 + 8, actual); // int + two longs
+    assertEquals(Journal.FRAME + 4 + 8 + 8, actual); // frame + int + two longs
   }
 }
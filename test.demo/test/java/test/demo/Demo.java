@@ -1,6 +1,6 @@
 package demo;
 
-import de.sormuras.stash.Stash;
+import com.github.sormuras.stash.Stash;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 
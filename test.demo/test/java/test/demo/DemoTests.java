@@ -3,7 +3,9 @@ package demo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class DemoTests {
 
@@ -30,4 +32,18 @@ class DemoTests {
     next.store(4);
     assertEquals("[1, 2, 3, 4, 0] = 10", next.toString());
   }
+
+  @Test
+  void open(@TempDir Path temp) throws Exception {
+    Path path = temp.resolve("demo");
+    DemoStash demo = DemoStash.open(new Demo.Impl(), path);
+    demo.store(1);
+    demo.store(2);
+    demo.store(3);
+    demo.journal().close();
+
+    DemoStash next = DemoStash.open(new Demo.Impl(), path);
+    next.store(4);
+    assertEquals("[1, 2, 3, 4, 0] = 10", next.toString());
+  }
 }